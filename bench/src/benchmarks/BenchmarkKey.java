@@ -0,0 +1,73 @@
+/*
+ * @filename BenchmarkKey.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  A 2048-bit RSA key for the benchmarks, the same shape the key files hold
+ */
+
+package benchmarks;
+
+import java.math.BigInteger;
+import java.security.SecureRandom;
+
+/**
+ * A BenchmarkKey is a freshly generated 2048-bit RSA key with its CRT
+ * parameters, so the benchmarks do not depend on any key files
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+final class BenchmarkKey {
+
+    /** The public exponent */
+    final BigInteger e;
+
+    /** The private exponent */
+    final BigInteger d;
+
+    /** The modulus */
+    final BigInteger n;
+
+    /** The first prime factor of n */
+    final BigInteger p;
+
+    /** The second prime factor of n */
+    final BigInteger q;
+
+    /** d mod p - 1 */
+    final BigInteger dP;
+
+    /** d mod q - 1 */
+    final BigInteger dQ;
+
+    /** The inverse of q mod p */
+    final BigInteger qInv;
+
+    /**
+     * Generate a new key
+     */
+    BenchmarkKey(){
+        SecureRandom random = new SecureRandom();
+        BigInteger p, q, n;
+        do {
+            p = BigInteger.probablePrime(1024, random);
+            q = BigInteger.probablePrime(1024, random);
+            n = p.multiply(q);
+        } while(n.bitLength() != 2048 || p.equals(q));
+        BigInteger phi = p.subtract(BigInteger.ONE)
+                .multiply(q.subtract(BigInteger.ONE));
+        BigInteger e = BigInteger.valueOf(65537);
+        while(!e.gcd(phi).equals(BigInteger.ONE))
+            e = e.add(BigInteger.TWO);
+        this.e = e;
+        this.d = e.modInverse(phi);
+        this.n = n;
+        this.p = p;
+        this.q = q;
+        this.dP = d.mod(p.subtract(BigInteger.ONE));
+        this.dQ = d.mod(q.subtract(BigInteger.ONE));
+        this.qInv = q.modInverse(p);
+    }
+}
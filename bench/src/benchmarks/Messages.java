@@ -0,0 +1,63 @@
+/*
+ * @filename Messages.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Shared state for the benchmarks: the key, and a quiet standard out
+ */
+
+package benchmarks;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.Random;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Messages holds what every benchmark thread shares: one generated key per
+ * trial. The Reporter prints each message it decrypts, so standard out is
+ * swapped for a stream that throws the output away during the trial
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+@State(Scope.Benchmark)
+public class Messages {
+
+    /** The key */
+    BenchmarkKey key;
+
+    /** The real standard out */
+    private PrintStream stdout;
+
+    @Setup(Level.Trial)
+    public void setup(){
+        key = new BenchmarkKey();
+        stdout = System.out;
+        System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown(){
+        System.setOut(stdout);
+    }
+
+    /**
+     * Make a message of lowercase letters
+     *
+     * @param length the length of the message
+     * @return the message
+     */
+    static String message(int length){
+        Random random = new Random(length);
+        StringBuilder sb = new StringBuilder();
+        for(int i = 0; i < length; i++)
+            sb.append((char)('a' + random.nextInt(26)));
+        return sb.toString();
+    }
+}
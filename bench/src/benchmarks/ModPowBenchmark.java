@@ -0,0 +1,83 @@
+/*
+ * @filename ModPowBenchmark.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  JMH benchmark of MontgomeryEngine against BigInteger.modPow
+ */
+
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the private key exponentiations of a fixed key, both the full
+ * 2048-bit one and a 1024-bit CRT half, done by BigInteger.modPow and by a
+ * MontgomeryEngine set up once for the modulus. Every benchmark thread has its
+ * own engine
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ModPowBenchmark {
+
+    /** The size of the modulus: the key's n, or its CRT prime p */
+    @Param({"2048", "1024"})
+    public int bits;
+
+    /** The modulus */
+    private BigInteger modulus;
+
+    /** The private exponent for the modulus */
+    private BigInteger exponent;
+
+    /** The ciphertext reduced by the modulus */
+    private BigInteger base;
+
+    /** The engine for the modulus */
+    private MontgomeryEngine engine;
+
+    /**
+     * Set up this thread's engine and inputs
+     *
+     * @param messages the shared key
+     */
+    @Setup
+    public void setup(Messages messages){
+        BenchmarkKey key = messages.key;
+        modulus = bits == 2048 ? key.n : key.p;
+        exponent = bits == 2048 ? key.d : key.dP;
+        base = new BigInteger(2047, new Random(bits)).mod(modulus);
+        engine = new MontgomeryEngine(modulus);
+    }
+
+    @Benchmark
+    public BigInteger bigInteger(){
+        return base.modPow(exponent, modulus);
+    }
+
+    @Benchmark
+    public BigInteger montgomeryEngine(){
+        return engine.modPow(base, exponent);
+    }
+}
@@ -0,0 +1,329 @@
+/*
+ * @filename MontgomeryEngine.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Modular exponentiation with a fixed modulus, using Montgomery
+ * multiplication on 64-bit limbs
+ */
+
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * A MontgomeryEngine does modular exponentiation for one odd modulus that
+ * never changes, like the 2048-bit RSA modulus or the 1024-bit CRT primes.
+ * BigInteger.modPow works out the Montgomery constants again on every call,
+ * the engine works them out once in the constructor. Numbers are held as
+ * little-endian arrays of 64-bit limbs, exponentiation uses a 5-bit sliding
+ * window, and the windows of the most recently used exponent are remembered,
+ * since a key's exponent doesn't change either. All the working arrays are
+ * allocated up front and reused, so an engine is not thread safe.
+ * <P>
+ * It is only kept as a baseline for {@link ModPowBenchmark}: where
+ * BigInteger's Montgomery multiply is a HotSpot intrinsic the engine is
+ * slower, so the Reporter uses BigInteger.modPow
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+final class MontgomeryEngine {
+
+    /** The sliding window size in bits */
+    private static final int WINDOW = 5;
+
+    /** The number of 64-bit limbs in the modulus */
+    private final int k;
+
+    /** The modulus */
+    private final BigInteger modulus;
+
+    /** The modulus as limbs */
+    private final long[] n;
+
+    /** -n^-1 mod 2^64 */
+    private final long nPrime;
+
+    /** R^2 mod n where R = 2^(64k), for converting into Montgomery form */
+    private final long[] r2;
+
+    /** The odd powers base^1, base^3, ... base^(2^WINDOW - 1) */
+    private final long[][] powers;
+
+    /** The running product of the exponentiation */
+    private final long[] acc;
+
+    /** The product accumulator of mul, k + 2 limbs */
+    private final long[] t;
+
+    /** Scratch for converting in and out of Montgomery form */
+    private final long[] scratch;
+
+    /** One, as limbs */
+    private final long[] one;
+
+    /** The exponent the windows were worked out for */
+    private BigInteger windowedExponent;
+
+    /** The value of each window, most significant first */
+    private int[] windowValues;
+
+    /** How many squarings come before each window's multiply */
+    private int[] windowShifts;
+
+    /** How many squarings come after the last window */
+    private int trailingShift;
+
+    /**
+     * Create a new MontgomeryEngine
+     *
+     * @param modulus the modulus, odd and greater than 1
+     * @throws IllegalArgumentException if the modulus is even or too small
+     */
+    MontgomeryEngine(BigInteger modulus){
+        if(modulus.signum() <= 0 || !modulus.testBit(0) ||
+                modulus.equals(BigInteger.ONE))
+            throw new IllegalArgumentException("modulus must be odd and > 1");
+        this.modulus = modulus;
+        this.k = (modulus.bitLength() + 63) >>> 6;
+        this.n = toLimbs(modulus, new long[k]);
+        this.nPrime = -inverse(n[0]);
+        this.r2 = toLimbs(BigInteger.ONE.shiftLeft(128 * k).mod(modulus),
+                new long[k]);
+        this.powers = new long[1 << (WINDOW - 1)][k];
+        this.acc = new long[k];
+        this.t = new long[k + 2];
+        this.scratch = new long[k];
+        this.one = new long[k];
+        this.one[0] = 1;
+    }
+
+    /**
+     * Get the modulus
+     *
+     * @return the modulus
+     */
+    BigInteger getModulus(){
+        return modulus;
+    }
+
+    /**
+     * Raise the base to the exponent, modulo the engine's modulus
+     *
+     * @param base the base
+     * @param exponent the exponent, not negative
+     * @return base ^ exponent mod modulus
+     * @throws ArithmeticException if the exponent is negative
+     */
+    BigInteger modPow(BigInteger base, BigInteger exponent){
+        if(exponent.signum() < 0)
+            throw new ArithmeticException("negative exponent");
+        if(base.signum() < 0 || base.compareTo(modulus) >= 0)
+            base = base.mod(modulus);
+        if(exponent.signum() == 0)
+            return BigInteger.ONE;
+        if(exponent != windowedExponent)
+            window(exponent);
+
+        // precompute the odd powers in Montgomery form
+        mul(toLimbs(base, scratch), r2, powers[0]);
+        mul(powers[0], powers[0], scratch);
+        for(int i = 1; i < powers.length; i++)
+            mul(powers[i - 1], scratch, powers[i]);
+
+        // the first window just picks its power
+        System.arraycopy(powers[windowValues[0] >>> 1], 0, acc, 0, k);
+        for(int w = 1; w < windowValues.length; w++){
+            for(int s = 0; s < windowShifts[w]; s++)
+                mul(acc, acc, acc);
+            mul(acc, powers[windowValues[w] >>> 1], acc);
+        }
+        for(int s = 0; s < trailingShift; s++)
+            mul(acc, acc, acc);
+
+        // out of Montgomery form
+        mul(acc, one, scratch);
+        return fromLimbs(scratch);
+    }
+
+    /**
+     * Work out the sliding windows of an exponent. Each window is odd and at
+     * most WINDOW bits wide
+     *
+     * @param exponent the exponent, positive
+     */
+    private void window(BigInteger exponent){
+        int bits = exponent.bitLength();
+        int[] values = new int[bits];
+        int[] shifts = new int[bits];
+        int count = 0;
+        int shift = 0;
+        int i = bits - 1;
+        while(i >= 0){
+            if(!exponent.testBit(i)){
+                shift++;
+                i--;
+                continue;
+            }
+
+            // the longest window starting here that ends on a 1 bit
+            int low = Math.max(i - WINDOW + 1, 0);
+            while(!exponent.testBit(low))
+                low++;
+            int value = 0;
+            for(int j = i; j >= low; j--)
+                value = (value << 1) | (exponent.testBit(j) ? 1 : 0);
+            values[count] = value;
+            shifts[count] = shift + (i - low + 1);
+            count++;
+            shift = 0;
+            i = low - 1;
+        }
+        windowValues = Arrays.copyOf(values, count);
+        windowShifts = Arrays.copyOf(shifts, count);
+        trailingShift = shift;
+        windowedExponent = exponent;
+    }
+
+    /**
+     * Montgomery multiply, out = a * b * R^-1 mod n. The output may be the
+     * same array as either input
+     *
+     * @param a the first factor, k limbs less than n
+     * @param b the second factor, k limbs less than n
+     * @param out where to put the product, k limbs
+     */
+    private void mul(long[] a, long[] b, long[] out){
+        long[] t = this.t;
+        Arrays.fill(t, 0);
+        for(int i = 0; i < k; i++){
+            // t += a * b[i]
+            long bi = b[i];
+            long c = 0;
+            for(int j = 0; j < k; j++){
+                long x = a[j];
+                long lo = x * bi;
+                long hi = unsignedMultiplyHigh(x, bi);
+                lo += t[j];
+                if(Long.compareUnsigned(lo, t[j]) < 0) hi++;
+                lo += c;
+                if(Long.compareUnsigned(lo, c) < 0) hi++;
+                t[j] = lo;
+                c = hi;
+            }
+            long s = t[k] + c;
+            t[k + 1] = Long.compareUnsigned(s, c) < 0 ? 1 : 0;
+            t[k] = s;
+
+            // t = (t + m * n) / 2^64, which clears the low limb
+            long m = t[0] * nPrime;
+            long lo = m * n[0];
+            long hi = unsignedMultiplyHigh(m, n[0]);
+            lo += t[0];
+            if(Long.compareUnsigned(lo, t[0]) < 0) hi++;
+            c = hi;
+            for(int j = 1; j < k; j++){
+                long y = n[j];
+                lo = m * y;
+                hi = unsignedMultiplyHigh(m, y);
+                lo += t[j];
+                if(Long.compareUnsigned(lo, t[j]) < 0) hi++;
+                lo += c;
+                if(Long.compareUnsigned(lo, c) < 0) hi++;
+                t[j - 1] = lo;
+                c = hi;
+            }
+            s = t[k] + c;
+            t[k - 1] = s;
+            t[k] = t[k + 1] + (Long.compareUnsigned(s, c) < 0 ? 1 : 0);
+        }
+
+        // one subtraction brings it below n
+        if(t[k] != 0 || !lessThanModulus(t)){
+            long borrow = 0;
+            for(int j = 0; j < k; j++){
+                long x = t[j];
+                long d = x - n[j] - borrow;
+                borrow = (Long.compareUnsigned(x, n[j]) < 0 ||
+                        (borrow != 0 && x == n[j])) ? 1 : 0;
+                out[j] = d;
+            }
+        } else {
+            System.arraycopy(t, 0, out, 0, k);
+        }
+    }
+
+    /**
+     * Check whether the low k limbs of x are less than the modulus
+     *
+     * @param x the limbs
+     * @return true if x < n
+     */
+    private boolean lessThanModulus(long[] x){
+        for(int j = k - 1; j >= 0; j--){
+            int cmp = Long.compareUnsigned(x[j], n[j]);
+            if(cmp != 0)
+                return cmp < 0;
+        }
+        return false;
+    }
+
+    /**
+     * The high 64 bits of the unsigned 128-bit product of x and y
+     *
+     * @param x the first factor
+     * @param y the second factor
+     * @return the high half of x * y
+     */
+    private static long unsignedMultiplyHigh(long x, long y){
+        return Math.multiplyHigh(x, y) + ((x >> 63) & y) + ((y >> 63) & x);
+    }
+
+    /**
+     * The inverse of an odd number mod 2^64, by Newton's iteration
+     *
+     * @param x the odd number
+     * @return x^-1 mod 2^64
+     */
+    private static long inverse(long x){
+        long y = x;
+        for(int i = 0; i < 5; i++)
+            y *= 2 - x * y;
+        return y;
+    }
+
+    /**
+     * Convert a non-negative BigInteger less than the modulus into k limbs
+     *
+     * @param x the number
+     * @param limbs where to put the limbs, k of them
+     * @return limbs, least significant first
+     */
+    private long[] toLimbs(BigInteger x, long[] limbs){
+        Arrays.fill(limbs, 0L);
+        byte[] bytes = x.toByteArray();
+        for(int i = 0; i < bytes.length && i < 8 * k; i++){
+            int limb = i >>> 3;
+            limbs[limb] |= (bytes[bytes.length - 1 - i] & 0xFFL) <<
+                    ((i & 7) << 3);
+        }
+        return limbs;
+    }
+
+    /**
+     * Convert k limbs into a BigInteger
+     *
+     * @param limbs the limbs, least significant first
+     * @return the number
+     */
+    private BigInteger fromLimbs(long[] limbs){
+        byte[] bytes = new byte[8 * k + 1];
+        for(int i = 0; i < 8 * k; i++)
+            bytes[bytes.length - 1 - i] = (byte)(limbs[i >>> 3] >>>
+                    ((i & 7) << 3));
+        return new BigInteger(bytes);
+    }
+}
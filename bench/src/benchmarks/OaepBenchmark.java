@@ -0,0 +1,212 @@
+/*
+ * @filename OaepBenchmark.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  JMH benchmarks for the OAEP encoder, including its SHA-256 and MGF1 mask
+ * and its batch decode
+ */
+
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures OAEP encoding and decoding for each SHA-256 backend and a range of
+ * message lengths, plus the sha256 and mask operations on the exact input
+ * sizes OAEP feeds them. Every benchmark thread has its own OAEP. The batch
+ * decode is reported per block, so it compares directly with
+ * decodeFromBuffer. It hashes with VectorSha256 only when the vector module's
+ * classes are on the class path and the fork runs with
+ * --add-modules jdk.incubator.vector
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OaepBenchmark {
+
+    /** The number of blocks in a batch decode */
+    private static final int BATCH = 256;
+
+    /** The length of the message in bytes, 190 is the most OAEP can hold */
+    @Param({"1", "32", "190"})
+    public int messageLength;
+
+    /** The SHA-256 backend */
+    @Param({"PURE_JAVA", "JDK"})
+    public String backend;
+
+    /** The OAEP instance */
+    private Object oaep;
+
+    /** The message to encode */
+    private String message;
+
+    /** The random seed */
+    private byte[] seed;
+
+    /** The message encoded as a BigInteger */
+    private BigInteger encoded;
+
+    /** The message encoded as a 256 byte block */
+    private byte[] block;
+
+    /** Scratch block for the mask benchmarks to scribble on */
+    private byte[] scratch;
+
+    /** The 227 byte (masked message || counter) input the seed mask hashes */
+    private byte[] hashInput;
+
+    /** The digest output */
+    private byte[] digest;
+
+    /** The blocks of a batch decode, all the same block */
+    private byte[][] blocks;
+
+    /** Where each block of a batch decode starts */
+    private int[] blockOffsets;
+
+    /** The length of each block of a batch decode */
+    private int[] blockLengths;
+
+    /** The batch decode's messages */
+    private byte[][] messages;
+
+    /** Where each of the batch decode's messages starts */
+    private int[] messageOffsets;
+
+    /** The length of each of the batch decode's messages */
+    private int[] messageLengths;
+
+    /** Why each block of a batch decode failed */
+    private IllegalArgumentException[] errors;
+
+    /**
+     * Set up the encoder and the inputs
+     */
+    @Setup
+    public void setup(){
+        oaep = Project.newOaep(backend);
+        message = Messages.message(messageLength);
+        Random random = new Random(messageLength);
+        seed = new byte[32];
+        random.nextBytes(seed);
+        encoded = Project.encode(oaep, message, seed);
+        block = new byte[256];
+        Project.encode(oaep, message, seed, block, 0);
+        scratch = block.clone();
+        hashInput = new byte[227];
+        random.nextBytes(hashInput);
+        digest = new byte[32];
+        blocks = new byte[BATCH][];
+        blockOffsets = new int[BATCH];
+        blockLengths = new int[BATCH];
+        messages = new byte[BATCH][190];
+        messageOffsets = new int[BATCH];
+        messageLengths = new int[BATCH];
+        errors = new IllegalArgumentException[BATCH];
+        for(int i = 0; i < BATCH; i++){
+            blocks[i] = block;
+            blockLengths[i] = block.length;
+        }
+    }
+
+    @Benchmark
+    public BigInteger encode(){
+        return Project.encode(oaep, message, seed);
+    }
+
+    @Benchmark
+    public byte[] encodeIntoBuffer(){
+        Project.encode(oaep, message, seed, scratch, 0);
+        return scratch;
+    }
+
+    @Benchmark
+    public String decode(){
+        return Project.decode(oaep, encoded);
+    }
+
+    @Benchmark
+    public String decodeFromBuffer(){
+        return Project.decode(oaep, block, 0, block.length);
+    }
+
+    /**
+     * Decode a batch of blocks, with every MGF1 hash of the batch done in one
+     * multi-buffer call
+     *
+     * @return the number of blocks decoded
+     */
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public int decodeBatch(){
+        return Project.decode(oaep, blocks, blockOffsets, blockLengths, BATCH,
+                messages, messageOffsets, messageLengths, errors);
+    }
+
+    /**
+     * Hash (seed || counter), the input of each of the seven data mask blocks
+     *
+     * @return the digest
+     */
+    @Benchmark
+    public byte[] sha256Seed(){
+        Project.sha256(oaep, hashInput, 0, 36, digest, 0);
+        return digest;
+    }
+
+    /**
+     * Hash (masked message || counter), the input of the seed mask
+     *
+     * @return the digest
+     */
+    @Benchmark
+    public byte[] sha256Message(){
+        Project.sha256(oaep, hashInput, 0, 227, digest, 0);
+        return digest;
+    }
+
+    /**
+     * Mask the 223 byte data block with a 32 byte seed
+     *
+     * @return the masked block
+     */
+    @Benchmark
+    public byte[] maskMessage(){
+        Project.mask(oaep, scratch, 33, 223, scratch, 1, 32);
+        return scratch;
+    }
+
+    /**
+     * Mask the 32 byte seed with the 223 byte data block
+     *
+     * @return the masked block
+     */
+    @Benchmark
+    public byte[] maskSeed(){
+        Project.mask(oaep, scratch, 1, 32, scratch, 33, 223);
+        return scratch;
+    }
+}
@@ -0,0 +1,331 @@
+/*
+ * @filename Project.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Method handles onto the project's classes for the benchmarks
+ */
+
+package benchmarks;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Proxy;
+import java.math.BigInteger;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.util.function.Consumer;
+
+/**
+ * The project lives in the default package, which Java code in a named package
+ * can't refer to, and JMH won't generate benchmarks in the default package.
+ * Project bridges the two with method handles. They are static finals, so the
+ * JIT treats them as constants and inlines straight through them. The private
+ * lookup also reaches OAEP's private sha256 and mask operations
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+final class Project {
+
+    /** The OAEP class */
+    private static final Class<?> OAEP = load("OAEP");
+
+    /** The OAEP.Backend enum */
+    private static final Class<?> BACKEND = load("OAEP$Backend");
+
+    /** The ReporterModel class */
+    private static final Class<?> REPORTER_MODEL = load("ReporterModel");
+
+    /** The ReporterProxy class */
+    private static final Class<?> REPORTER_PROXY = load("ReporterProxy");
+
+    /** The LeakerProxy class */
+    private static final Class<?> LEAKER_PROXY = load("LeakerProxy");
+
+    /** The LeakerListener interface */
+    private static final Class<?> LEAKER_LISTENER = load("LeakerListener");
+
+    /** new OAEP(Backend) */
+    private static final MethodHandle NEW_OAEP = constructor(OAEP, BACKEND);
+
+    /** OAEP.encode(String, byte[]) */
+    private static final MethodHandle ENCODE = method(OAEP, "encode",
+            BigInteger.class, String.class, byte[].class);
+
+    /** OAEP.encode(String, byte[], byte[], int) */
+    private static final MethodHandle ENCODE_INTO = method(OAEP, "encode",
+            void.class, String.class, byte[].class, byte[].class, int.class);
+
+    /** OAEP.decode(BigInteger) */
+    private static final MethodHandle DECODE = method(OAEP, "decode",
+            String.class, BigInteger.class);
+
+    /** OAEP.decode(byte[], int, int) */
+    private static final MethodHandle DECODE_FROM = method(OAEP, "decode",
+            String.class, byte[].class, int.class, int.class);
+
+    /** OAEP.decode(byte[][], int[], int[], int, byte[][], int[], int[],
+     * IllegalArgumentException[]) */
+    private static final MethodHandle DECODE_BATCH = method(OAEP, "decode",
+            int.class, byte[][].class, int[].class, int[].class, int.class,
+            byte[][].class, int[].class, int[].class,
+            IllegalArgumentException[].class);
+
+    /** OAEP.sha256(byte[], int, int, byte[], int) */
+    private static final MethodHandle SHA256 = method(OAEP, "sha256",
+            void.class, byte[].class, int.class, int.class, byte[].class,
+            int.class);
+
+    /** OAEP.mask(byte[], int, int, byte[], int, int) */
+    private static final MethodHandle MASK = method(OAEP, "mask",
+            void.class, byte[].class, int.class, int.class, byte[].class,
+            int.class, int.class);
+
+    /** new ReporterModel(d, n, p, q, dP, dQ, qInv) */
+    private static final MethodHandle NEW_REPORTER_MODEL = constructor(
+            REPORTER_MODEL, BigInteger.class, BigInteger.class,
+            BigInteger.class, BigInteger.class, BigInteger.class,
+            BigInteger.class, BigInteger.class);
+
+    /** ReporterModel.decrypt(BigInteger) */
+    private static final MethodHandle DECRYPT = method(REPORTER_MODEL,
+            "decrypt", String[].class, BigInteger.class);
+
+    /** new ReporterProxy(DatagramSocket, InetSocketAddress) */
+    private static final MethodHandle NEW_REPORTER_PROXY = constructor(
+            REPORTER_PROXY, DatagramSocket.class, InetSocketAddress.class);
+
+    /** ReporterProxy.report(BigInteger) */
+    private static final MethodHandle SEND = method(REPORTER_PROXY, "report",
+            void.class, BigInteger.class);
+
+    /** new LeakerProxy(DatagramSocket) */
+    private static final MethodHandle NEW_LEAKER_PROXY = constructor(
+            LEAKER_PROXY, DatagramSocket.class);
+
+    /** LeakerProxy.setListener(LeakerListener) */
+    private static final MethodHandle SET_LISTENER = method(LEAKER_PROXY,
+            "setListener", void.class, LEAKER_LISTENER);
+
+    /** Can't make one */
+    private Project(){}
+
+    /**
+     * Make an OAEP
+     *
+     * @param backend the name of the OAEP.Backend
+     * @return the OAEP
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    static Object newOaep(String backend){
+        try {
+            return NEW_OAEP.invoke(Enum.valueOf((Class)BACKEND, backend));
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static BigInteger encode(Object oaep, String str, byte[] seed){
+        try {
+            return (BigInteger)ENCODE.invokeExact(oaep, str, seed);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void encode(Object oaep, String str, byte[] seed, byte[] buf,
+                       int off){
+        try {
+            ENCODE_INTO.invokeExact(oaep, str, seed, buf, off);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String decode(Object oaep, BigInteger bi){
+        try {
+            return (String)DECODE.invokeExact(oaep, bi);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String decode(Object oaep, byte[] buf, int off, int len){
+        try {
+            return (String)DECODE_FROM.invokeExact(oaep, buf, off, len);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static int decode(Object oaep, byte[][] buf, int[] off, int[] len,
+                      int count, byte[][] msg, int[] msgoff, int[] msglen,
+                      IllegalArgumentException[] err){
+        try {
+            return (int)DECODE_BATCH.invokeExact(oaep, buf, off, len, count,
+                    msg, msgoff, msglen, err);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void sha256(Object oaep, byte[] msgbuf, int msgoff, int msglen,
+                       byte[] digbuf, int digoff){
+        try {
+            SHA256.invokeExact(oaep, msgbuf, msgoff, msglen, digbuf, digoff);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void mask(Object oaep, byte[] msgbuf, int msgoff, int msglen,
+                     byte[] seedbuf, int seedoff, int seedlen){
+        try {
+            MASK.invokeExact(oaep, msgbuf, msgoff, msglen, seedbuf, seedoff,
+                    seedlen);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Make a ReporterModel
+     *
+     * @param key the key
+     * @param crt whether to give the model the CRT parameters
+     * @return the ReporterModel
+     */
+    static Object newReporterModel(BenchmarkKey key, boolean crt){
+        try {
+            return crt
+                    ? NEW_REPORTER_MODEL.invoke(key.d, key.n, key.p, key.q,
+                            key.dP, key.dQ, key.qInv)
+                    : NEW_REPORTER_MODEL.invoke(key.d, key.n, null, null,
+                            null, null, null);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static String[] decrypt(Object reporterModel, BigInteger bi){
+        try {
+            return (String[])DECRYPT.invokeExact(reporterModel, bi);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static Object newReporterProxy(DatagramSocket socket,
+                                   InetSocketAddress destination){
+        try {
+            return NEW_REPORTER_PROXY.invoke(socket, destination);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    static void send(Object reporterProxy, BigInteger bi){
+        try {
+            SEND.invokeExact(reporterProxy, bi);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Make a LeakerProxy on the socket that hands every message it receives
+     * to the given consumer
+     *
+     * @param socket the socket to receive on
+     * @param listener what to do with each message
+     */
+    static void listen(DatagramSocket socket, Consumer<BigInteger> listener){
+        Object leakerListener = Proxy.newProxyInstance(
+                LEAKER_LISTENER.getClassLoader(),
+                new Class<?>[]{LEAKER_LISTENER},
+                (proxy, method, args) -> {
+                    if(method.getDeclaringClass() == Object.class)
+                        return method.invoke(listener, args);
+                    listener.accept((BigInteger)args[0]);
+                    return null;
+                });
+        try {
+            SET_LISTENER.invoke(NEW_LEAKER_PROXY.invoke(socket),
+                    leakerListener);
+        } catch (Throwable t) {
+            throw rethrow(t);
+        }
+    }
+
+    /**
+     * Load a class from the default package
+     *
+     * @param name the class name
+     * @return the class
+     */
+    private static Class<?> load(String name){
+        try {
+            return Class.forName(name);
+        } catch (ClassNotFoundException cnfe) {
+            throw new IllegalStateException("project classes not on the " +
+                    "classpath", cnfe);
+        }
+    }
+
+    /**
+     * Find a constructor, typed to return Object
+     *
+     * @param type the class
+     * @param params the parameter types
+     * @return the method handle
+     */
+    private static MethodHandle constructor(Class<?> type,
+                                            Class<?>... params){
+        try {
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                    .findConstructor(type, MethodType.methodType(void.class,
+                            params))
+                    .asType(MethodType.methodType(Object.class, params));
+        } catch (ReflectiveOperationException roe) {
+            throw new IllegalStateException(roe);
+        }
+    }
+
+    /**
+     * Find an instance method, typed to take its receiver as an Object
+     *
+     * @param type the class
+     * @param name the method name
+     * @param returns the return type
+     * @param params the parameter types
+     * @return the method handle
+     */
+    private static MethodHandle method(Class<?> type, String name,
+                                       Class<?> returns, Class<?>... params){
+        try {
+            MethodType mt = MethodType.methodType(returns, params);
+            return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                    .findVirtual(type, name, mt)
+                    .asType(mt.insertParameterTypes(0, Object.class));
+        } catch (ReflectiveOperationException roe) {
+            throw new IllegalStateException(roe);
+        }
+    }
+
+    /**
+     * Rethrow whatever the project threw, without checked exceptions
+     *
+     * @param t what was thrown
+     * @return never returns, declared so callers can "throw rethrow(t)"
+     */
+    private static RuntimeException rethrow(Throwable t){
+        if(t instanceof RuntimeException)
+            throw (RuntimeException)t;
+        if(t instanceof Error)
+            throw (Error)t;
+        throw new IllegalStateException(t);
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * @filename RsaBenchmark.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  JMH benchmarks for the Leaker's encryption and the Reporter's decryption
+ */
+
+package benchmarks;
+
+import java.math.BigInteger;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures encrypting a message the way LeakerModel does, and decrypting it
+ * through ReporterModel.decrypt() with and without the CRT parameters, which
+ * leaves out printing the message. Every benchmark thread has its own encoder
+ * and model
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RsaBenchmark {
+
+    /** The length of the message in bytes */
+    @Param({"1", "32", "190"})
+    public int messageLength;
+
+    /** Whether the Reporter decrypts with the CRT parameters */
+    @Param({"true", "false"})
+    public boolean crt;
+
+    /** The Leaker's encoder */
+    private Object oaep;
+
+    /** The Reporter's model */
+    private Object model;
+
+    /** The random number generator for seeds */
+    private Random random;
+
+    /** The seed */
+    private byte[] seed;
+
+    /** The message */
+    private String message;
+
+    /** The encrypted message */
+    private BigInteger ciphertext;
+
+    /** The public exponent */
+    private BigInteger e;
+
+    /** The modulus */
+    private BigInteger n;
+
+    /**
+     * Set up this thread's encoder, model and message
+     *
+     * @param messages the shared key
+     */
+    @Setup
+    public void setup(Messages messages){
+        oaep = Project.newOaep("JDK");
+        model = Project.newReporterModel(messages.key, crt);
+        e = messages.key.e;
+        n = messages.key.n;
+        random = new Random(messageLength);
+        seed = new byte[32];
+        message = Messages.message(messageLength);
+        ciphertext = leakerEncrypt();
+    }
+
+    /**
+     * Encrypt the message like LeakerModel does: a fresh random seed, encode,
+     * then the public key modPow
+     *
+     * @return the ciphertext
+     */
+    @Benchmark
+    public BigInteger leakerEncrypt(){
+        for(int i = 0; i < seed.length; i++)
+            seed[i] = (byte)random.nextInt();
+        return Project.encode(oaep, message, seed).modPow(e, n);
+    }
+
+    /**
+     * Decrypt and decode the message like the Reporter does
+     *
+     * @return the message
+     */
+    @Benchmark
+    public String[] reporterDecrypt(){
+        return Project.decrypt(model, ciphertext);
+    }
+}
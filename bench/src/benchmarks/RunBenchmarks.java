@@ -0,0 +1,63 @@
+/*
+ * @filename RunBenchmarks.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Runs the JMH benchmarks once for each requested thread count
+ */
+
+package benchmarks;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * RunBenchmarks runs the benchmarks matching a regular expression with each of
+ * the given thread counts, with the GC profiler on so allocation rates are
+ * reported next to the timings
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class RunBenchmarks {
+
+    /** The usage message */
+    private static final String USAGE = "Usage: java benchmarks.RunBenchmarks" +
+            " [regex] [threads,...]\n";
+
+    /**
+     * The driver function
+     *
+     * @param args the command line args
+     * @throws RunnerException if JMH fails
+     */
+    public static void main(String[] args) throws RunnerException {
+        String regex = args.length > 0 ? args[0] : "benchmarks\\..*";
+        String threads = args.length > 1 ? args[1] : "1," +
+                Runtime.getRuntime().availableProcessors();
+
+        for(String t : threads.split(",")){
+            int count = 0;
+            try{
+                count = Integer.parseInt(t.trim());
+            } catch (NumberFormatException nfe){
+                count = 0;
+            }
+            if(count < 1){
+                System.err.printf("'%s' not a valid thread count\n", t);
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+            Options options = new OptionsBuilder()
+                    .include(regex)
+                    .threads(count)
+                    .addProfiler(GCProfiler.class)
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * @filename UdpRoundTripBenchmark.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  JMH benchmark of one message from a Leaker to a Reporter over loopback UDP
+ */
+
+package benchmarks;
+
+import java.math.BigInteger;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.util.Random;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the whole path of a message: encryption as in LeakerModel, a
+ * ReporterProxy sending it over loopback, a LeakerProxy receiving it and a
+ * ReporterModel decrypting it. Every benchmark thread has its own pair of
+ * sockets, and waits until its message is delivered before sending the next
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UdpRoundTripBenchmark {
+
+    /** How long to wait for a message before counting it as lost */
+    private static final long TIMEOUT_MS = 1000;
+
+    /** The length of the message in bytes */
+    @Param({"1", "32", "190"})
+    public int messageLength;
+
+    /** Messages that never arrived, reported next to the score */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Lost {
+        public long lost;
+    }
+
+    /** The Leaker's socket */
+    private DatagramSocket leakerSocket;
+
+    /** The Reporter's socket */
+    private DatagramSocket reporterSocket;
+
+    /** The Leaker side proxy */
+    private Object proxy;
+
+    /** Released once for every message the Reporter delivers */
+    private final Semaphore delivered = new Semaphore(0);
+
+    /** The Leaker's encoder */
+    private Object oaep;
+
+    /** The random number generator for seeds */
+    private Random random;
+
+    /** The seed */
+    private byte[] seed;
+
+    /** The message */
+    private String message;
+
+    /** The public exponent */
+    private BigInteger e;
+
+    /** The modulus */
+    private BigInteger n;
+
+    /**
+     * Bind this thread's sockets and wire up the proxies and model
+     *
+     * @param messages the shared key
+     * @throws SocketException if a loopback socket can't be bound
+     */
+    @Setup
+    public void setup(Messages messages) throws SocketException {
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        reporterSocket = new DatagramSocket(new InetSocketAddress(loopback, 0));
+        leakerSocket = new DatagramSocket(new InetSocketAddress(loopback, 0));
+        proxy = Project.newReporterProxy(leakerSocket, new InetSocketAddress(
+                loopback, reporterSocket.getLocalPort()));
+        Object model = Project.newReporterModel(messages.key, true);
+        Project.listen(reporterSocket, bi -> {
+            Project.decrypt(model, bi);
+            delivered.release();
+        });
+        oaep = Project.newOaep("JDK");
+        e = messages.key.e;
+        n = messages.key.n;
+        random = new Random(messageLength);
+        seed = new byte[32];
+        message = Messages.message(messageLength);
+    }
+
+    /**
+     * Close the sockets, which also stops the receive thread
+     */
+    @TearDown
+    public void tearDown(){
+        leakerSocket.close();
+        reporterSocket.close();
+    }
+
+    /**
+     * Send one message and wait for the Reporter to deliver it
+     *
+     * @param lost counts messages that timed out
+     * @throws InterruptedException if interrupted while waiting
+     */
+    @Benchmark
+    public void roundTrip(Lost lost) throws InterruptedException {
+        for(int i = 0; i < seed.length; i++)
+            seed[i] = (byte)random.nextInt();
+        Project.send(proxy, Project.encode(oaep, message, seed).modPow(e, n));
+        if(!delivered.tryAcquire(TIMEOUT_MS, TimeUnit.MILLISECONDS))
+            lost.lost++;
+    }
+}
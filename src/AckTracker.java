@@ -0,0 +1,221 @@
+/*
+ * @filename AckTracker.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The Reporter's side of reliable delivery, which datagrams each sender's
+ * stream has had and what to ack
+ */
+
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * The AckTracker remembers, for each {@link Reliable} stream, which sequence
+ * numbers have arrived. A new datagram is passed on and a retransmitted one
+ * is dropped, and either way the sender is sent an ack so it can stop
+ * retransmitting. A stream skips ahead to the base each envelope carries, past
+ * datagrams its sender gave up on, and a stream not known yet starts there.
+ * Streams are kept by sender address and stream id, the least
+ * recently used going first once there are {@link #CAPACITY} of them. An
+ * AckTracker is thread safe and can be shared by several receivers
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class AckTracker {
+
+    /** The most streams to keep */
+    public static final int CAPACITY = 1024;
+
+    /** How far past the first missing datagram a stream remembers */
+    private static final int WINDOW = Reliable.MAX_WINDOW;
+
+    /** The streams, least recently used first */
+    private final Map<Id, Stream> streams =
+            new LinkedHashMap<>(16, 0.75f, true){
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Id, Stream> eldest){
+                    return size() > CAPACITY;
+                }
+            };
+
+    /** Where acks and dropped retransmits are counted */
+    private final ReporterStats stats = ReporterStats.get();
+
+    /**
+     * Record an envelope and write the ack for it
+     *
+     * @param source the sender's address
+     * @param buf the buffer holding the envelope
+     * @param off where the envelope starts
+     * @param len the length of the envelope
+     * @param ack gets the ack, {@link Reliable#ACK_SIZE} bytes, if one should
+     *            be sent
+     * @return true if the datagram inside is new and should be passed on,
+     *         false if it was seen before or the envelope is malformed, in
+     *         which case no ack is written
+     */
+    public boolean receive(SocketAddress source, byte[] buf, int off, int len,
+                           byte[] ack){
+        ack[0] = 0;
+        if(len <= Reliable.HEADER){
+            stats.lengthRejected();
+            return false;
+        }
+        long id = Hybrid.getLong(buf, off + 1);
+        int sequence = Hybrid.getInt(buf, off + 9);
+        int base = Hybrid.getInt(buf, off + 13);
+        int unsettled = sequence - base;
+        if(unsettled < 0 || unsettled >= WINDOW){
+            // the sender waits on at most a window, from its base on
+            stats.rangeRejected();
+            return false;
+        }
+        boolean fresh;
+        synchronized (streams){
+            Stream stream = streams.computeIfAbsent(new Id(source, id),
+                    k -> new Stream(base));
+            if(base - stream.next > 0)
+                stream.skip(base);
+            // next is now at or past the base, so the sequence is less than a
+            // window ahead of it
+            fresh = sequence - stream.next >= 0 && stream.receive(sequence);
+            Reliable.putAck(ack, id, stream.next, stream.selective());
+        }
+        stats.ackSent();
+        if(!fresh)
+            stats.retransmitDropped();
+        return fresh;
+    }
+
+    /**
+     * This class is the key of a stream, the sender's address and the stream
+     * id
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private static final class Id {
+
+        /** The sender's address, null if not known */
+        private final SocketAddress source;
+
+        /** The stream id */
+        private final long id;
+
+        /**
+         * Create a new Id
+         *
+         * @param source the sender's address
+         * @param id the stream id
+         */
+        Id(SocketAddress source, long id){
+            this.source = source;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Id))
+                return false;
+            Id other = (Id) o;
+            return id == other.id && Objects.equals(source, other.source);
+        }
+
+        @Override
+        public int hashCode(){
+            return Long.hashCode(id) * 31 + Objects.hashCode(source);
+        }
+    }
+
+    /**
+     * This class is one sender's stream
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private static class Stream {
+
+        /** The first sequence number not yet received */
+        private int next;
+
+        /** Bit n % WINDOW is set if n, from next up to WINDOW past it, has
+         * been received */
+        private final long[] received = new long[WINDOW / Long.SIZE];
+
+        /**
+         * Create a new Stream
+         *
+         * @param next the first sequence number expected
+         */
+        Stream(int next){
+            this.next = next;
+        }
+
+        /**
+         * Move next up to the sender's base, forgetting what lies between,
+         * then past anything already received after it
+         *
+         * @param base the oldest sequence number the sender is waiting on,
+         *             ahead of next
+         */
+        void skip(int base){
+            if(base - next >= WINDOW)
+                Arrays.fill(received, 0L);
+            else
+                for(; next != base; next++){
+                    int bit = Math.floorMod(next, WINDOW);
+                    received[bit / Long.SIZE] &= ~(1L << bit);
+                }
+            next = base;
+            slide();
+        }
+
+        /**
+         * Record a sequence number at or ahead of next
+         *
+         * @param sequence the sequence number
+         * @return true if it wasn't received before
+         */
+        boolean receive(int sequence){
+            int bit = Math.floorMod(sequence, WINDOW);
+            if((received[bit / Long.SIZE] & 1L << bit) != 0)
+                return false;
+            received[bit / Long.SIZE] |= 1L << bit;
+            slide();
+            return true;
+        }
+
+        /**
+         * Slide next past everything received in order, forgetting it
+         */
+        private void slide(){
+            for(int bit = Math.floorMod(next, WINDOW);
+                (received[bit / Long.SIZE] & 1L << bit) != 0;
+                bit = Math.floorMod(next, WINDOW)){
+                received[bit / Long.SIZE] &= ~(1L << bit);
+                next++;
+            }
+        }
+
+        /**
+         * @return a bit for each of the 64 sequence numbers after next, set
+         *         if it has been received
+         */
+        long selective(){
+            long bits = 0;
+            for(int i = 0; i < Long.SIZE; i++){
+                int bit = Math.floorMod(next + 1 + i, WINDOW);
+                if((received[bit / Long.SIZE] & 1L << bit) != 0)
+                    bits |= 1L << i;
+            }
+            return bits;
+        }
+    }
+}
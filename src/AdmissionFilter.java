@@ -0,0 +1,265 @@
+/*
+ * @filename AdmissionFilter.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Cheap checks on a received ciphertext before it is worth a private key
+ * exponentiation
+ */
+
+import java.math.BigInteger;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The AdmissionFilter sits between a receiver and the {@link DecryptPool}, and
+ * drops packets that can't be worth decrypting before they take a slot in the
+ * ring. A packet is rejected if it is empty or longer than the modulus, if it
+ * is negative, or if it is not less than the modulus, all without touching a
+ * BigInteger. {@link Hybrid} datagrams must have the right length for their
+ * type, and the RSA block in a key datagram must be less than the modulus.
+ * If a rate is given each source host also gets a token bucket, so one
+ * sender can't use up every worker. Rejections are counted in the
+ * {@link ReporterStats} by reason
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class AdmissionFilter implements LeakerBytesListener {
+
+    /** The most source hosts to keep a bucket for, least recent go first */
+    public static final int MAX_SOURCES = 65536;
+
+    /** The modulus, big-endian with no leading zero */
+    private final byte[] modulus;
+
+    /** Where admitted packets go */
+    private final LeakerBytesListener next;
+
+    /** Packets a source may send per second, or 0 for no limit */
+    private final double rate;
+
+    /** Packets a source may send at once after being quiet */
+    private final double burst;
+
+    /** The buckets, by source host, in least recently used order */
+    private final Map<InetAddress, Bucket> buckets;
+
+    /** Where rejections are counted */
+    private final ReporterStats stats = ReporterStats.get();
+
+    /**
+     * Create a new AdmissionFilter that doesn't limit the rate of any source
+     *
+     * @param modulus the modulus of the private key
+     * @param next where to send admitted packets
+     */
+    public AdmissionFilter(BigInteger modulus, LeakerBytesListener next){
+        this(modulus, next, 0, 0);
+    }
+
+    /**
+     * Create a new AdmissionFilter
+     *
+     * @param modulus the modulus of the private key
+     * @param next where to send admitted packets
+     * @param rate packets each source host may send per second, 0 for no
+     *             limit
+     * @param burst packets a source host may send at once, at least 1 if
+     *              rate is given
+     * @throws IllegalArgumentException if the rate is negative, or if the
+     *                                  burst is less than 1 with a rate
+     */
+    public AdmissionFilter(BigInteger modulus,
+                           LeakerBytesListener next, int rate, int burst){
+        if(rate < 0)
+            throw new IllegalArgumentException("rate must not be negative");
+        if(rate > 0 && burst < 1)
+            throw new IllegalArgumentException("burst must be at least 1");
+        byte[] bytes = modulus.toByteArray();
+        int start = bytes[0] == 0 ? 1 : 0;
+        this.modulus = Arrays.copyOfRange(bytes, start, bytes.length);
+        this.next = next;
+        this.rate = rate;
+        this.burst = burst;
+        this.buckets = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(
+                    Map.Entry<InetAddress, Bucket> eldest){
+                return size() > MAX_SOURCES;
+            }
+        };
+    }
+
+    /**
+     * Pass the packet on if it could be a ciphertext and its source has a
+     * token to spend, otherwise count why it was dropped
+     *
+     * @param source where the packet came from, or null if not known
+     * @param buf the buffer holding the packet
+     * @param off where the packet starts in the buffer
+     * @param len the length of the packet
+     */
+    @Override
+    public void report(SocketAddress source, byte[] buf, int off, int len) {
+        if(len > 0 && buf[off] < 0 ? !wellFormed(buf, off, len)
+                : !inRange(buf, off, len))
+            return;
+        if(rate > 0 && !takeToken(source)){
+            stats.rateRejected();
+            return;
+        }
+        next.report(source, buf, off, len);
+    }
+
+    /**
+     * Check that a typed datagram has a known type and the right length for
+     * it, counting a rejection if it doesn't
+     *
+     * @param buf the buffer holding the packet
+     * @param off where the packet starts in the buffer
+     * @param len the length of the packet
+     * @return true if it is well formed
+     */
+    private boolean wellFormed(byte[] buf, int off, int len){
+        switch(buf[off]){
+            case Hybrid.KEY:
+                if(len != Hybrid.KEY_PACKET)
+                    break;
+                // the block is unsigned, its top bit is no sign
+                if(belowModulus(buf, off + 9, Hybrid.BLOCK))
+                    return true;
+                stats.rangeRejected();
+                return false;
+            case Hybrid.DATA:
+                if(len < Hybrid.DATA_HEADER + Hybrid.TAG_BYTES
+                        || len > Hybrid.MAX_DATAGRAM)
+                    break;
+                return true;
+            default:
+                stats.rangeRejected();
+                return false;
+        }
+        stats.lengthRejected();
+        return false;
+    }
+
+    /**
+     * Check that the packet is a BigInteger's two's complement bytes for a
+     * value from 0 up to but not including the modulus, counting a rejection
+     * if it isn't
+     *
+     * @param buf the buffer holding the packet
+     * @param off where the packet starts in the buffer
+     * @param len the length of the packet
+     * @return true if it is in range
+     */
+    private boolean inRange(byte[] buf, int off, int len){
+        if(len < 1 || len > modulus.length + 1){
+            stats.lengthRejected();
+            return false;
+        }
+        if(buf[off] < 0 || !belowModulus(buf, off, len)){
+            stats.rangeRejected();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Compare unsigned big-endian bytes with the modulus
+     *
+     * @param buf the buffer holding the bytes
+     * @param off where they start in the buffer
+     * @param len how many there are
+     * @return true if they are less than the modulus
+     */
+    private boolean belowModulus(byte[] buf, int off, int len){
+        // skip any leading zeros
+        int end = off + len;
+        while(off < end && buf[off] == 0)
+            off++;
+        len = end - off;
+        if(len != modulus.length)
+            return len < modulus.length;
+        for(int i = 0; i < len; i++){
+            int a = buf[off + i] & 0xff;
+            int b = modulus[i] & 0xff;
+            if(a != b)
+                return a < b;
+        }
+        return false;
+    }
+
+    /**
+     * Take a token from the source host's bucket
+     *
+     * @param source the source of the packet, null sources are not limited
+     * @return true if there was a token to take
+     */
+    private boolean takeToken(SocketAddress source){
+        if(!(source instanceof InetSocketAddress))
+            return true;
+        InetAddress host = ((InetSocketAddress) source).getAddress();
+        long now = System.nanoTime();
+        synchronized (buckets){
+            Bucket bucket = buckets.get(host);
+            if(bucket == null){
+                bucket = new Bucket(burst, now);
+                buckets.put(host, bucket);
+            }
+            return bucket.take(now, rate, burst);
+        }
+    }
+
+    /**
+     * This class is the token bucket of one source host, refilled lazily
+     * whenever a token is taken
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private static class Bucket {
+
+        /** The tokens left */
+        private double tokens;
+
+        /** When the tokens were last refilled */
+        private long refilled;
+
+        /**
+         * Create a new full Bucket
+         *
+         * @param tokens the tokens to start with
+         * @param now the current nanoTime
+         */
+        Bucket(double tokens, long now){
+            this.tokens = tokens;
+            this.refilled = now;
+        }
+
+        /**
+         * Refill the bucket for the time since the last refill and take a
+         * token if there is one
+         *
+         * @param now the current nanoTime
+         * @param rate tokens added per second
+         * @param burst the most tokens the bucket holds
+         * @return true if a token was taken
+         */
+        boolean take(long now, double rate, double burst){
+            tokens = Math.min(burst,
+                    tokens + (now - refilled) * rate / 1_000_000_000.0);
+            refilled = now;
+            if(tokens < 1)
+                return false;
+            tokens--;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,338 @@
+/*
+ * @filename BulkDecrypt.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Decrypts a capture file of ciphertexts offline, on every core
+ */
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigInteger;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * BulkDecrypt decrypts a capture of ciphertexts with the Reporter's private
+ * key, without a socket in sight, and prints the messages in capture order.
+ * A text capture has one decimal ciphertext per line, like ciphertext.txt. A
+ * binary capture, picked with -binary, is a run of 256 byte unsigned
+ * big-endian ciphertexts with nothing in between.
+ * <P>
+ * The capture is memory-mapped a segment at a time, so it can be bigger than
+ * memory and than one mapping. Ciphertexts are decrypted a batch at a time by
+ * a fork-join pool, each thread with its own {@link ReporterModel}, and each
+ * batch is printed once all of it is done. A ciphertext that doesn't decrypt
+ * is reported on standard error by its record number, counting from 0
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class BulkDecrypt {
+
+    /** The usage message */
+    private static final String USAGE = "Usage: java BulkDecrypt " +
+            "<privatekeyfile> <capture> [-binary] [-threads <count>]\n";
+
+    /** The size of a ciphertext in a binary capture */
+    public static final int RECORD = Hybrid.BLOCK;
+
+    /** The ciphertexts decrypted together before their messages are printed */
+    private static final int BATCH = 4096;
+
+    /** The most bytes mapped at once, a multiple of RECORD */
+    private static final int SEGMENT = 1 << 30;
+
+    /** The number of optional CRT lines in the private key file */
+    private static final int CRT_PARAMS = 5;
+
+    /** The capture being read */
+    private final FileChannel capture;
+
+    /** Whether the capture is binary rather than text */
+    private final boolean binary;
+
+    /** The threads that decrypt */
+    private final ForkJoinPool pool;
+
+    /** Each thread's model */
+    private final ThreadLocal<ReporterModel> models;
+
+    /** Where the messages go */
+    private final Writer out;
+
+    /** Where each record in the batch starts in the segment */
+    private final int[] starts = new int[BATCH];
+
+    /** The length of each record in the batch */
+    private final int[] lengths = new int[BATCH];
+
+    /** The number of the next record */
+    private long record;
+
+    /**
+     * Create a new BulkDecrypt
+     *
+     * @param capture the capture to read
+     * @param binary whether the capture is binary rather than text
+     * @param pool the threads that decrypt
+     * @param key the private exponent, modulus and optionally the CRT
+     *            parameters, as in the private key file
+     * @param out where the messages go
+     */
+    public BulkDecrypt(FileChannel capture, boolean binary, ForkJoinPool pool,
+                       BigInteger[] key, Writer out){
+        this.capture = capture;
+        this.binary = binary;
+        this.pool = pool;
+        this.models = ThreadLocal.withInitial(() -> new ReporterModel(key[0],
+                key[1], key[2], key[3], key[4], key[5], key[6]));
+        this.out = out;
+    }
+
+    /**
+     * The driver method
+     *
+     * @param args the command line args
+     */
+    public static void main(String[] args){
+        if(args.length < 2){
+            System.err.println("Missing arguments");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        boolean binary = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for(int i = 2; i < args.length; i++){
+            if(args[i].equals("-binary"))
+                binary = true;
+            else if(args[i].equals("-threads") && i + 1 < args.length)
+                threads = parsePositive(args[++i], "thread count");
+            else{
+                System.err.printf("'%s' not a valid option\n", args[i]);
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        }
+
+        BigInteger[] key = readKey(args[0]);
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try(
+                FileChannel capture = FileChannel.open(Paths.get(args[1]),
+                        StandardOpenOption.READ);
+                Writer out = new BufferedWriter(new OutputStreamWriter(
+                        System.out, StandardCharsets.UTF_8), 1 << 16)
+                ){
+            new BulkDecrypt(capture, binary, pool, key, out).run();
+        } catch (NoSuchFileException e) {
+            System.err.printf("Could not open file '%s'\n", args[1]);
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Decrypt the whole capture
+     *
+     * @throws IOException if reading the capture or writing messages fails
+     */
+    public void run() throws IOException {
+        long size = capture.size();
+        long position = 0;
+        while(position < size){
+            long length = Math.min(SEGMENT, size - position);
+            MappedByteBuffer segment = capture.map(
+                    FileChannel.MapMode.READ_ONLY, position, length);
+            int used = decryptSegment(segment, position + length == size);
+            if(used == 0)
+                throw new IOException(String.format(
+                        "record %d at byte %d is malformed or too long",
+                        record, position));
+            position += used;
+        }
+        out.flush();
+    }
+
+    /**
+     * Decrypt every whole record in a segment, a batch at a time
+     *
+     * @param segment the mapped segment
+     * @param last whether the segment runs to the end of the capture
+     * @return the bytes used, which stop short of the end of the segment if
+     *         a record runs past it
+     * @throws IOException if writing messages fails
+     */
+    private int decryptSegment(MappedByteBuffer segment, boolean last)
+            throws IOException {
+        int at = 0;
+        int limit = segment.limit();
+        boolean more = true;
+        while(more){
+            int count = 0;
+            while(count < BATCH){
+                int end = binary ? at + RECORD : find(segment, at, limit);
+                if(end > limit || end == limit && !last && !binary){
+                    more = false;
+                    break;
+                }
+                starts[count] = at;
+                lengths[count] = end - at;
+                at = binary ? end : Math.min(end + 1, limit);
+                // blank lines aren't records
+                if(lengths[count] > 0)
+                    count++;
+                if(at == limit){
+                    more = false;
+                    break;
+                }
+            }
+            if(count > 0)
+                decryptBatch(segment, count);
+        }
+        if(binary && last && at < limit)
+            System.err.printf("capture ends with a partial record of %d " +
+                    "bytes\n", limit - at);
+        return binary && last ? limit : at;
+    }
+
+    /**
+     * Find the end of the line that starts at the given index
+     *
+     * @param segment the mapped segment
+     * @param at where the line starts
+     * @param limit the end of the segment
+     * @return the index of the newline, or limit if there is none
+     */
+    private static int find(MappedByteBuffer segment, int at, int limit){
+        while(at < limit && segment.get(at) != '\n')
+            at++;
+        return at;
+    }
+
+    /**
+     * Decrypt a batch of records on the pool and print their messages in
+     * order
+     *
+     * @param segment the mapped segment holding them
+     * @param count the number of records in the batch
+     * @throws IOException if writing messages fails
+     */
+    private void decryptBatch(MappedByteBuffer segment, int count)
+            throws IOException {
+        String[][] messages;
+        try{
+            // only absolute gets are used, so the threads can share segment
+            messages = pool.submit(() -> IntStream.range(0, count).parallel()
+                    .mapToObj(i -> decrypt(segment, starts[i], lengths[i]))
+                    .toArray(String[][]::new)).get();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e){
+            throw new IOException(e.getCause());
+        }
+        for(String[] plainTexts : messages){
+            if(plainTexts == null)
+                System.err.printf("record %d did not decrypt\n", record);
+            else
+                for(String plainText : plainTexts){
+                    out.write(plainText);
+                    out.write('\n');
+                }
+            record++;
+        }
+    }
+
+    /**
+     * Decrypt one record with the calling thread's model
+     *
+     * @param segment the mapped segment holding it
+     * @param start where it starts
+     * @param length its length
+     * @return its messages, or null if it didn't decrypt
+     */
+    private String[] decrypt(MappedByteBuffer segment, int start, int length){
+        byte[] bytes = new byte[length];
+        segment.get(start, bytes);
+        BigInteger ciphertext;
+        try{
+            ciphertext = binary ? new BigInteger(1, bytes)
+                    : new BigInteger(new String(bytes,
+                    StandardCharsets.US_ASCII).trim());
+        } catch (NumberFormatException nfe){
+            return null;
+        }
+        return models.get().decrypt(ciphertext);
+    }
+
+    /**
+     * Read the private key file, whose CRT parameters are optional
+     *
+     * @param file the private key file
+     * @return the exponent, modulus and CRT parameters, which may be null
+     */
+    private static BigInteger[] readKey(String file){
+        BigInteger[] key = new BigInteger[2 + CRT_PARAMS];
+        try(
+                Scanner s = new Scanner(new File(file))
+                ){
+            key[0] = new BigInteger(s.nextLine());
+            key[1] = new BigInteger(s.nextLine());
+            if(s.hasNextLine())
+                for(int i = 2; i < key.length; i++)
+                    key[i] = new BigInteger(s.nextLine());
+            new ReporterModel(key[0], key[1], key[2], key[3], key[4],
+                    key[5], key[6]);
+        } catch (FileNotFoundException e) {
+            System.err.printf("Could not open file '%s'\n", file);
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (NoSuchElementException | IllegalArgumentException e){
+            System.err.println("Invalid private key file");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        return key;
+    }
+
+    /**
+     * Parse a number that must be at least 1
+     *
+     * @param str the string to parse
+     * @param what what the number is, for the error message
+     * @return the number
+     */
+    private static int parsePositive(String str, String what){
+        int value = 0;
+        try{
+            value = Integer.parseInt(str);
+        } catch (NumberFormatException nfe){
+            value = 0;
+        }
+        if(value < 1){
+            System.err.printf("'%s' not a valid %s\n", str, what);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        return value;
+    }
+}
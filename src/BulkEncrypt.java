@@ -0,0 +1,249 @@
+/*
+ * @filename BulkEncrypt.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Encrypts a file of messages offline, on every core, into a capture that
+ * can be replayed later
+ */
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * BulkEncrypt encrypts one message per line of its input with a Reporter's
+ * public key, without sending anything, and writes the ciphertexts in input
+ * order to a capture that {@link BulkDecrypt} can read and {@link Replay} can
+ * send. The capture is text, one decimal ciphertext per line, or with
+ * -binary a run of 256 byte unsigned big-endian ciphertexts.
+ * <P>
+ * The input is read a batch at a time, so it can be any size, and each batch
+ * is encrypted by a fork-join pool before it is written. A line too long for
+ * one OAEP block is reported on standard error by its line number and left
+ * out
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class BulkEncrypt {
+
+    /** The usage message */
+    private static final String USAGE = "Usage: java BulkEncrypt " +
+            "<publickeyfile> <input | -> <capture> [-binary] " +
+            "[-threads <count>]\n";
+
+    /** The messages encrypted together before they are written */
+    private static final int BATCH = 4096;
+
+    /** The input, one message per line */
+    private final BufferedReader in;
+
+    /** Where the capture goes */
+    private final OutputStream out;
+
+    /** Whether the capture is binary rather than text */
+    private final boolean binary;
+
+    /** The threads that encrypt */
+    private final ForkJoinPool pool;
+
+    /** Encrypts the messages, from any thread */
+    private final LeakerModel model;
+
+    /** The lines of the batch */
+    private final String[] lines = new String[BATCH];
+
+    /** The number of the last line read */
+    private long line;
+
+    /**
+     * Create a new BulkEncrypt
+     *
+     * @param in the input, one message per line
+     * @param out where the capture goes
+     * @param binary whether to write a binary capture rather than text
+     * @param pool the threads that encrypt
+     * @param exponent the public exponent
+     * @param modulus the public modulus
+     */
+    public BulkEncrypt(BufferedReader in, OutputStream out, boolean binary,
+                       ForkJoinPool pool, BigInteger exponent,
+                       BigInteger modulus){
+        this.in = in;
+        this.out = out;
+        this.binary = binary;
+        this.pool = pool;
+        this.model = new LeakerModel(exponent, modulus, null);
+    }
+
+    /**
+     * The driver method
+     *
+     * @param args the command line args
+     */
+    public static void main(String[] args){
+        if(args.length < 3){
+            System.err.println("Missing arguments");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        boolean binary = false;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for(int i = 3; i < args.length; i++){
+            if(args[i].equals("-binary"))
+                binary = true;
+            else if(args[i].equals("-threads") && i + 1 < args.length)
+                threads = parsePositive(args[++i], "thread count");
+            else{
+                System.err.printf("'%s' not a valid option\n", args[i]);
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        }
+
+        // Try to read public key file
+        BigInteger exponent = null;
+        BigInteger modulus = null;
+        try(
+                Scanner s = new Scanner(new File(args[0]))
+                ){
+            exponent = new BigInteger(s.nextLine());
+            modulus = new BigInteger(s.nextLine());
+        } catch (FileNotFoundException e) {
+            System.err.printf("Could not open file '%s'\n", args[0]);
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (NumberFormatException | NoSuchElementException e) {
+            System.err.printf("file '%s' has invalid keys\n", args[0]);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try(
+                InputStream input = args[1].equals("-")
+                        ? System.in : new FileInputStream(args[1]);
+                BufferedReader in = new BufferedReader(new InputStreamReader(
+                        input, StandardCharsets.UTF_8), 1 << 16);
+                OutputStream out = new BufferedOutputStream(
+                        new FileOutputStream(args[2]), 1 << 16)
+                ){
+            new BulkEncrypt(in, out, binary, pool, exponent, modulus).run();
+        } catch (FileNotFoundException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(1);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * Encrypt the whole input
+     *
+     * @throws IOException if reading the input or writing the capture fails
+     */
+    public void run() throws IOException {
+        byte[] record = new byte[BulkDecrypt.RECORD];
+        int count;
+        do {
+            count = 0;
+            String next;
+            while(count < BATCH && (next = in.readLine()) != null)
+                lines[count++] = next;
+            BigInteger[] ciphertexts = encryptBatch(count);
+            for(int i = 0; i < count; i++){
+                line++;
+                if(ciphertexts[i] == null){
+                    System.err.printf("line %d is too long to encrypt\n",
+                            line);
+                    continue;
+                }
+                if(binary){
+                    Hybrid.putBlock(ciphertexts[i], record, 0);
+                    out.write(record);
+                } else {
+                    out.write(ciphertexts[i].toString().getBytes(
+                            StandardCharsets.US_ASCII));
+                    out.write('\n');
+                }
+            }
+        } while(count == BATCH);
+        out.flush();
+    }
+
+    /**
+     * Encrypt a batch of lines on the pool
+     *
+     * @param count the number of lines in the batch
+     * @return each line's ciphertext, null if it was too long
+     * @throws IOException if interrupted
+     */
+    private BigInteger[] encryptBatch(int count) throws IOException {
+        try{
+            return pool.submit(() -> IntStream.range(0, count).parallel()
+                    .mapToObj(this::encrypt)
+                    .toArray(BigInteger[]::new)).get();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted", e);
+        } catch (ExecutionException e){
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Encrypt one line of the batch
+     *
+     * @param i the line's index in the batch
+     * @return its ciphertext, or null if it is too long
+     */
+    private BigInteger encrypt(int i){
+        try{
+            return model.encrypt(lines[i]);
+        } catch (IllegalArgumentException iae){
+            return null;
+        }
+    }
+
+    /**
+     * Parse a number that must be at least 1
+     *
+     * @param str the string to parse
+     * @param what what the number is, for the error message
+     * @return the number
+     */
+    private static int parsePositive(String str, String what){
+        int value = 0;
+        try{
+            value = Integer.parseInt(str);
+        } catch (NumberFormatException nfe){
+            value = 0;
+        }
+        if(value < 1){
+            System.err.printf("'%s' not a valid %s\n", str, what);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        return value;
+    }
+}
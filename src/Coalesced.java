@@ -0,0 +1,163 @@
+/*
+ * @filename Coalesced.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Packs several short messages into one OAEP block, and back out
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A Coalesced block carries several short messages in one OAEP payload, so
+ * they share one RSA operation. The payload is a marker byte followed by each
+ * message's length and UTF-8 bytes
+ * <pre>
+ * [0xff][length:1][message]...[length:1][message]
+ * </pre>
+ * 0xff never appears in UTF-8, so a payload that starts with it can't be a
+ * single message. A Coalesced object is a packer the Leaker fills up one
+ * message at a time, and is not thread safe
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class Coalesced {
+
+    /** The first byte of a coalesced payload */
+    public static final byte MARKER = (byte) 0xff;
+
+    /** The longest message that can go in a block with another one */
+    public static final int MAX_MESSAGE = OAEP.MAX_MESSAGE - 3;
+
+    /** The payload being filled */
+    private final byte[] payload;
+
+    /** The bytes of the payload used */
+    private int length;
+
+    /** The number of messages in the payload */
+    private int count;
+
+    /** The first message in the payload, sent alone if nothing joins it */
+    private String first;
+
+    /**
+     * Create a new Coalesced packer
+     *
+     * @param limit the most bytes in a payload, from 3 up to
+     *              OAEP.MAX_MESSAGE
+     * @throws IllegalArgumentException if the limit is out of range
+     */
+    public Coalesced(int limit){
+        checkLimit(limit);
+        this.payload = new byte[limit];
+        clear();
+    }
+
+    /**
+     * Check that a payload limit is one a packer can be made with
+     *
+     * @param limit the most bytes in a payload
+     * @throws IllegalArgumentException if the limit is not from 3 up to
+     *                                  OAEP.MAX_MESSAGE
+     */
+    public static void checkLimit(int limit){
+        if(limit < 3 || limit > OAEP.MAX_MESSAGE)
+            throw new IllegalArgumentException("limit must be from 3 to " +
+                    OAEP.MAX_MESSAGE);
+    }
+
+    /**
+     * Add a message to the payload
+     *
+     * @param message the message
+     * @param utf8 the message's UTF-8 bytes
+     * @return true if it was added, false if there isn't room for it
+     */
+    public boolean add(String message, byte[] utf8){
+        if(utf8.length > MAX_MESSAGE ||
+                length + 1 + utf8.length > payload.length)
+            return false;
+        payload[length++] = (byte) utf8.length;
+        System.arraycopy(utf8, 0, payload, length, utf8.length);
+        length += utf8.length;
+        if(count++ == 0)
+            first = message;
+        return true;
+    }
+
+    /**
+     * @return the number of messages in the payload
+     */
+    public int count(){
+        return count;
+    }
+
+    /**
+     * @return the only message in the payload
+     */
+    public String first(){
+        return first;
+    }
+
+    /**
+     * Take the payload and start a new one
+     *
+     * @return a copy of the payload
+     */
+    public byte[] take(){
+        byte[] taken = new byte[length];
+        System.arraycopy(payload, 0, taken, 0, length);
+        clear();
+        return taken;
+    }
+
+    /**
+     * Check whether a decoded payload is coalesced
+     *
+     * @param buf the buffer holding the payload
+     * @param off where the payload starts
+     * @param len the length of the payload
+     * @return true if it starts with the marker
+     */
+    public static boolean isCoalesced(byte[] buf, int off, int len){
+        return len > 0 && buf[off] == MARKER;
+    }
+
+    /**
+     * Unpack a coalesced payload
+     *
+     * @param buf the buffer holding the payload
+     * @param off where the payload starts
+     * @param len the length of the payload
+     * @return the messages
+     * @throws IllegalArgumentException if a length runs past the end
+     */
+    public static String[] unpack(byte[] buf, int off, int len){
+        List<String> messages = new ArrayList<>();
+        int end = off + len;
+        for(int i = off + 1; i < end; ){
+            int size = buf[i++] & 0xff;
+            if(i + size > end)
+                throw new IllegalArgumentException(
+                        "Coalesced block length incorrect");
+            messages.add(new String(buf, i, size, StandardCharsets.UTF_8));
+            i += size;
+        }
+        return messages.toArray(new String[0]);
+    }
+
+    /**
+     * Empty the payload
+     */
+    private void clear(){
+        payload[0] = MARKER;
+        length = 1;
+        count = 0;
+        first = null;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * @filename DecryptPool.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  A pool of worker threads that decrypt messages off of the receive thread
+ */
+
+import java.math.BigInteger;
+import java.net.SocketAddress;
+import java.util.function.Supplier;
+
+/**
+ * The DecryptPool sits between the {@link LeakerProxy} and the models. The
+ * proxy's receive thread only copies the ciphertext into a {@link PacketRing},
+ * and a fixed number of worker threads take them out of the ring and decrypt
+ * them. Every worker gets its own listener from the factory, so none of the
+ * OAEP scratch space is shared between threads. Ciphertexts are passed on as
+ * bytes, and it is up to the worker's listener to turn them into a BigInteger
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class DecryptPool implements LeakerListener, LeakerBytesListener {
+
+    /** The default number of ring slots */
+    public static final int RING_SIZE = 4096;
+
+    /** The largest packet a ring slot holds, the receivers' buffer size */
+    public static final int SLOT_SIZE = Hybrid.MAX_DATAGRAM;
+
+    /** The ciphertexts waiting to be decrypted */
+    private final PacketRing ring;
+
+    /**
+     * Create a new DecryptPool whose receiver waits when the workers fall
+     * RING_SIZE packets behind, and start its workers
+     *
+     * @param workers the number of worker threads
+     * @param factory makes one listener for each worker
+     * @throws IllegalArgumentException if workers is less than 1
+     */
+    public DecryptPool(int workers, Supplier<LeakerBytesListener> factory){
+        this(workers, factory, new PacketRing(RING_SIZE, SLOT_SIZE,
+                PacketRing.Overflow.BLOCK));
+    }
+
+    /**
+     * Create a new DecryptPool that queues ciphertexts in the given ring, and
+     * start its workers
+     *
+     * @param workers the number of worker threads
+     * @param factory makes one listener for each worker
+     * @param ring the ring to queue ciphertexts in
+     * @throws IllegalArgumentException if workers is less than 1
+     */
+    public DecryptPool(int workers, Supplier<LeakerBytesListener> factory,
+                       PacketRing ring){
+        this(workers, factory, ring, "DecryptPool");
+    }
+
+    /**
+     * Create a new DecryptPool that queues ciphertexts in the given ring, and
+     * start its workers with the given name
+     *
+     * @param workers the number of worker threads
+     * @param factory makes one listener for each worker
+     * @param ring the ring to queue ciphertexts in
+     * @param name the start of each worker thread's name
+     * @throws IllegalArgumentException if workers is less than 1
+     */
+    public DecryptPool(int workers, Supplier<LeakerBytesListener> factory,
+                       PacketRing ring, String name){
+        if(workers < 1)
+            throw new IllegalArgumentException("workers must be at least 1");
+        this.ring = ring;
+        for(int i = 0; i < workers; i++)
+            new WorkerThread(factory.get(), name + "-" + i).start();
+    }
+
+    /**
+     * Get the ring the ciphertexts wait in
+     *
+     * @return the ring
+     */
+    public PacketRing getRing(){
+        return ring;
+    }
+
+    /**
+     * Queue a message for one of the workers to decrypt
+     *
+     * @param bi the encoded, then RSA encrypted BigInteger
+     */
+    @Override
+    public void report(BigInteger bi) {
+        byte[] buffer = bi.toByteArray();
+        report(null, buffer, 0, buffer.length);
+    }
+
+    /**
+     * Copy a message into the ring for one of the workers to decrypt. What
+     * happens if the ring is full is up to its overflow policy
+     *
+     * @param source where the message came from, or null if not known
+     * @param buf the buffer holding the message
+     * @param off where the message starts in the buffer
+     * @param len the length of the message
+     */
+    @Override
+    public void report(SocketAddress source, byte[] buf, int off, int len) {
+        try {
+            ring.put(source, buf, off, len, System.nanoTime());
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * This class is a thread that takes ciphertexts out of the ring and hands
+     * them to its own listener
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private class WorkerThread extends Thread{
+
+        /** The listener owned by this worker */
+        private final LeakerBytesListener listener;
+
+        /**
+         * Create a new WorkerThread
+         *
+         * @param listener the listener only this worker uses
+         * @param name the thread name
+         */
+        WorkerThread(LeakerBytesListener listener, String name){
+            super(name);
+            this.listener = listener;
+        }
+
+        public void run(){
+            ReporterStats stats = ReporterStats.get();
+            LatencyHistogram waited = stats.receiveToDecrypt();
+            PacketRing.Entry entry = ring.newEntry();
+            while(true) {
+                try {
+                    ring.take(entry);
+                    waited.record(System.nanoTime() - entry.received);
+                    listener.report(entry.source, entry.data, 0,
+                            entry.length);
+                } catch (InterruptedException ie) {
+                    return;
+                } catch (RuntimeException re) {
+                    // one bad packet mustn't cost the pool a worker
+                    stats.workerError();
+                    re.printStackTrace(System.err);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ * @filename Framed.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The wire format of a datagram carrying several RSA ciphertexts
+ */
+
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * A framed datagram carries up to {@link #MAX_SLOTS} RSA ciphertexts, each in
+ * a fixed size slot, so a bulk sender makes one send and pays for one set of
+ * headers for several messages
+ * <pre>
+ * [0x83][version:1][key id:4][sequence:4][count:1][ciphertext:256]...
+ * </pre>
+ * All numbers are big-endian. Each ciphertext is unsigned and padded with
+ * leading zeros to fill its slot. The key id is taken from the modulus the
+ * ciphertexts were encrypted for, so a Reporter drops frames meant for another
+ * key without decrypting anything, and the sequence number counts each
+ * sender's frames. A receiver unpacks a frame in place into one legacy
+ * ciphertext per slot, so everything past the proxies sees exactly what an
+ * unframed sender would have sent
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public final class Framed {
+
+    /** The type byte of a framed datagram */
+    public static final byte FRAME = (byte) 0x83;
+
+    /** The version of the format this code writes and reads */
+    public static final byte VERSION = 1;
+
+    /** The size of the header */
+    public static final int HEADER = 1 + 1 + 4 + 4 + 1;
+
+    /** The size of a ciphertext slot */
+    public static final int SLOT = Hybrid.BLOCK;
+
+    /** The most slots in one datagram, leaving room for a {@link Reliable}
+     * envelope */
+    public static final int MAX_SLOTS = (Hybrid.MAX_DATAGRAM - Reliable.HEADER
+            - HEADER) / SLOT;
+
+    /** The size of a framed datagram with every slot used */
+    public static final int MAX_FRAME = HEADER + MAX_SLOTS * SLOT;
+
+    /** The size of an unpacked slot, a sign byte and the ciphertext */
+    public static final int UNPACKED = SLOT + 1;
+
+    /**
+     * Not to be constructed
+     */
+    private Framed(){}
+
+    /**
+     * Work out the key id of a modulus, the first four bytes of the SHA-256
+     * of its decimal digits
+     *
+     * @param modulus the modulus
+     * @return the key id
+     */
+    public static int keyId(BigInteger modulus){
+        try{
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(
+                    modulus.toString().getBytes(StandardCharsets.US_ASCII));
+            return Hybrid.getInt(digest, 0);
+        } catch (NoSuchAlgorithmException e){
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * Write a framed datagram's header
+     *
+     * @param buf where to write it, from index 0
+     * @param keyId the key id of the modulus
+     * @param sequence the sender's frame number
+     * @param count the number of slots used
+     */
+    public static void putHeader(byte[] buf, int keyId, int sequence,
+                                 int count){
+        buf[0] = FRAME;
+        buf[1] = VERSION;
+        Hybrid.putInt(buf, 2, keyId);
+        Hybrid.putInt(buf, 6, sequence);
+        buf[10] = (byte) count;
+    }
+
+    /**
+     * Write a ciphertext into a slot
+     *
+     * @param ciphertext the ciphertext
+     * @param buf the datagram
+     * @param slot the slot number
+     */
+    public static void putSlot(BigInteger ciphertext, byte[] buf, int slot){
+        Hybrid.putBlock(ciphertext, buf, HEADER + slot * SLOT);
+    }
+
+    /**
+     * Unpack a framed datagram in place. Each slot is moved down to sit after
+     * a zero sign byte, {@link #UNPACKED} bytes apart from the start of the
+     * datagram, so it reads as a positive BigInteger. The datagram never
+     * grows, since its header is longer than the sign bytes it gains
+     *
+     * @param buf the buffer holding the datagram
+     * @param off where the datagram starts
+     * @param len the length of the datagram
+     * @param keyId the key id of the receiver's modulus
+     * @param offs gets where each ciphertext starts
+     * @param lens gets the length of each ciphertext
+     * @param at the first index of offs and lens to fill
+     * @return the number of ciphertexts, or -1 if the datagram is malformed
+     *         or for another key, in which case buf is untouched
+     */
+    public static int unpack(byte[] buf, int off, int len, int keyId,
+                             int[] offs, int[] lens, int at){
+        if(len < HEADER || buf[off] != FRAME || buf[off + 1] != VERSION
+                || Hybrid.getInt(buf, off + 2) != keyId)
+            return -1;
+        int count = buf[off + 10] & 0xff;
+        if(count < 1 || count > MAX_SLOTS || len != HEADER + count * SLOT)
+            return -1;
+        // slot i moves from HEADER + i * SLOT down to i * UNPACKED, which is
+        // always lower, so copying in order never overwrites a slot not yet
+        // moved
+        for(int i = 0; i < count; i++){
+            int to = off + i * UNPACKED;
+            System.arraycopy(buf, off + HEADER + i * SLOT, buf, to + 1, SLOT);
+            buf[to] = 0;
+            offs[at + i] = to;
+            lens[at + i] = UNPACKED;
+        }
+        return count;
+    }
+}
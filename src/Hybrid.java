@@ -0,0 +1,253 @@
+/*
+ * @filename Hybrid.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The wire format and AES-GCM details shared by both ends of a hybrid
+ * encrypted message
+ */
+
+import java.math.BigInteger;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * A message too long for one OAEP block is sent hybrid encrypted: a random
+ * AES key is RSA-OAEP encrypted once, and the message itself is AES-GCM
+ * encrypted in chunks. A legacy datagram is a positive BigInteger, so its
+ * first byte is never above 0x7f, and the hybrid datagrams start with a type
+ * byte that has the high bit set
+ * <pre>
+ * key:  [0x81][session id:8][RSA encrypted key:256]
+ * data: [0x82][session id:8][message:4][chunk:2][chunks:2][AES-GCM chunk]
+ * </pre>
+ * All numbers are big-endian. A data datagram's GCM nonce is its message,
+ * chunk and chunks fields, which never repeat for one key, and its whole
+ * header is authenticated along with the chunk
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public final class Hybrid {
+
+    /** The largest datagram sent or received, an Ethernet MTU less headers */
+    public static final int MAX_DATAGRAM = 1472;
+
+    /** The type byte of a key datagram */
+    public static final byte KEY = (byte) 0x81;
+
+    /** The type byte of a data datagram */
+    public static final byte DATA = (byte) 0x82;
+
+    /** The size of an RSA block */
+    public static final int BLOCK = 256;
+
+    /** The size of the AES key */
+    public static final int KEY_BYTES = 16;
+
+    /** The size of a key datagram */
+    public static final int KEY_PACKET = 1 + 8 + BLOCK;
+
+    /** The size of a data datagram's header */
+    public static final int DATA_HEADER = 1 + 8 + 4 + 2 + 2;
+
+    /** The size of the GCM tag on each chunk */
+    public static final int TAG_BYTES = 16;
+
+    /** The most plaintext bytes in one chunk, leaving room for a
+     * {@link Reliable} envelope */
+    public static final int MAX_CHUNK = MAX_DATAGRAM - Reliable.HEADER
+            - DATA_HEADER - TAG_BYTES;
+
+    /** The most chunks in one message */
+    public static final int MAX_CHUNKS = 1024;
+
+    /** The AES-GCM transformation */
+    private static final String AES_GCM = "AES/GCM/NoPadding";
+
+    /** Where the nonce starts in a data header */
+    private static final int NONCE_OFFSET = 9;
+
+    /** The size of the nonce */
+    private static final int NONCE_BYTES = 12;
+
+    /**
+     * Not to be constructed
+     */
+    private Hybrid(){}
+
+    /**
+     * Make a Cipher for AES-GCM. Ciphers are not thread safe, each thread
+     * needs its own
+     *
+     * @return the cipher
+     * @throws IllegalStateException if the JDK has no AES-GCM
+     */
+    public static Cipher newCipher(){
+        try{
+            return Cipher.getInstance(AES_GCM);
+        } catch (GeneralSecurityException e){
+            throw new IllegalStateException("AES-GCM not available", e);
+        }
+    }
+
+    /**
+     * Write a data datagram's header
+     *
+     * @param buf where to write it
+     * @param off where the datagram starts
+     * @param session the session id
+     * @param message the message number
+     * @param chunk the chunk number
+     * @param chunks the number of chunks in the message
+     */
+    public static void putHeader(byte[] buf, int off, long session,
+                                 int message, int chunk, int chunks){
+        buf[off] = DATA;
+        putLong(buf, off + 1, session);
+        putInt(buf, off + 9, message);
+        buf[off + 13] = (byte) (chunk >>> 8);
+        buf[off + 14] = (byte) chunk;
+        buf[off + 15] = (byte) (chunks >>> 8);
+        buf[off + 16] = (byte) chunks;
+    }
+
+    /**
+     * Encrypt a chunk into a data datagram whose header is already written
+     *
+     * @param cipher the cipher to use
+     * @param key the session's AES key
+     * @param packet the datagram, with room for the chunk and tag after the
+     *               header
+     * @param plain the buffer holding the chunk
+     * @param off where the chunk starts
+     * @param len the length of the chunk
+     * @return the length of the datagram
+     */
+    public static int seal(Cipher cipher, SecretKeySpec key, byte[] packet,
+                           byte[] plain, int off, int len){
+        try{
+            cipher.init(Cipher.ENCRYPT_MODE, key, nonce(packet, 0));
+            cipher.updateAAD(packet, 0, DATA_HEADER);
+            return DATA_HEADER + cipher.doFinal(plain, off, len, packet,
+                    DATA_HEADER);
+        } catch (GeneralSecurityException e){
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Decrypt and authenticate the chunk in a data datagram
+     *
+     * @param cipher the cipher to use
+     * @param key the session's AES key
+     * @param packet the buffer holding the datagram
+     * @param off where the datagram starts
+     * @param len the length of the datagram
+     * @return the chunk
+     * @throws GeneralSecurityException if the chunk doesn't authenticate
+     */
+    public static byte[] open(Cipher cipher, SecretKeySpec key, byte[] packet,
+                              int off, int len)
+            throws GeneralSecurityException {
+        cipher.init(Cipher.DECRYPT_MODE, key, nonce(packet, off));
+        cipher.updateAAD(packet, off, DATA_HEADER);
+        return cipher.doFinal(packet, off + DATA_HEADER, len - DATA_HEADER);
+    }
+
+    /**
+     * Write a BigInteger as exactly BLOCK unsigned big-endian bytes
+     *
+     * @param value the value, less than 2^(8 * BLOCK)
+     * @param buf where to write it
+     * @param off where to start
+     */
+    public static void putBlock(BigInteger value, byte[] buf, int off){
+        byte[] bytes = value.toByteArray();
+        int len = Math.min(bytes.length, BLOCK);
+        Arrays.fill(buf, off, off + BLOCK - len, (byte) 0);
+        System.arraycopy(bytes, bytes.length - len, buf, off + BLOCK - len,
+                len);
+    }
+
+    /**
+     * Read a big-endian long
+     *
+     * @param buf the buffer
+     * @param off where the long starts
+     * @return the long
+     */
+    public static long getLong(byte[] buf, int off){
+        long value = 0;
+        for(int i = 0; i < 8; i++)
+            value = value << 8 | (buf[off + i] & 0xff);
+        return value;
+    }
+
+    /**
+     * Write a big-endian long
+     *
+     * @param buf the buffer
+     * @param off where the long starts
+     * @param value the long
+     */
+    public static void putLong(byte[] buf, int off, long value){
+        for(int i = 7; i >= 0; i--, value >>>= 8)
+            buf[off + i] = (byte) value;
+    }
+
+    /**
+     * Read a big-endian int
+     *
+     * @param buf the buffer
+     * @param off where the int starts
+     * @return the int
+     */
+    public static int getInt(byte[] buf, int off){
+        return (buf[off] & 0xff) << 24 | (buf[off + 1] & 0xff) << 16
+                | (buf[off + 2] & 0xff) << 8 | (buf[off + 3] & 0xff);
+    }
+
+    /**
+     * Write a big-endian int
+     *
+     * @param buf the buffer
+     * @param off where the int starts
+     * @param value the int
+     */
+    public static void putInt(byte[] buf, int off, int value){
+        buf[off] = (byte) (value >>> 24);
+        buf[off + 1] = (byte) (value >>> 16);
+        buf[off + 2] = (byte) (value >>> 8);
+        buf[off + 3] = (byte) value;
+    }
+
+    /**
+     * Read a big-endian unsigned short
+     *
+     * @param buf the buffer
+     * @param off where the short starts
+     * @return the short
+     */
+    public static int getShort(byte[] buf, int off){
+        return (buf[off] & 0xff) << 8 | (buf[off + 1] & 0xff);
+    }
+
+    /**
+     * Make the GCM parameters for a data datagram from its header
+     *
+     * @param packet the buffer holding the datagram
+     * @param off where the datagram starts
+     * @return the parameters
+     */
+    private static GCMParameterSpec nonce(byte[] packet, int off){
+        byte[] nonce = new byte[NONCE_BYTES];
+        System.arraycopy(packet, off + NONCE_OFFSET, nonce, 0,
+                DATA_HEADER - NONCE_OFFSET);
+        return new GCMParameterSpec(TAG_BYTES * 8, nonce);
+    }
+}
@@ -0,0 +1,314 @@
+/*
+ * @filename Journal.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  An append-only, memory-mapped journal of the messages the Reporter
+ * delivers, synced to disk in groups
+ */
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.zip.CRC32C;
+
+/**
+ * A Journal appends one record per delivered message to a directory of
+ * fixed size segment files, each mapped into memory while it is written
+ * <pre>
+ * [length:4][crc32c:4][time:8][digest:16][port:2][address length:1]
+ * [address][plaintext]
+ * </pre>
+ * All numbers are big-endian. The length counts the bytes after the CRC, and
+ * the CRC covers those same bytes. The time is in milliseconds since the
+ * epoch, the digest is the first 128 bits of the SHA-256 of the datagram the
+ * message came in, and the address is 4 or 16 bytes, or none if the source
+ * isn't known. The plaintext is UTF-8. A segment's unused tail is zeros, so a
+ * zero length ends it, and a record that won't fit starts the next segment.
+ * <P>
+ * A record is copied into the mapping under a lock, which makes it safe from
+ * a crash of the Reporter at once, since the page cache holds it. A sync
+ * thread forces everything appended since its last pass to disk every sync
+ * interval, so all the records of an interval share one fsync, and at most an
+ * interval's records can be lost if the machine goes down. A new Journal
+ * never writes into an old segment. It starts the next one, so a torn record
+ * at the end of the last run stays where a {@link JournalReader} stops. A
+ * Journal is thread safe
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class Journal implements JournalMBean {
+
+    /** The size of a segment file */
+    public static final int SEGMENT = 64 << 20;
+
+    /** The default sync interval in milliseconds */
+    public static final int SYNC_MILLIS = 10;
+
+    /** The size of the length and CRC before each record */
+    public static final int HEADER = 4 + 4;
+
+    /** The size of a record's fixed fields after the header */
+    public static final int FIXED = 8 + 16 + 2 + 1;
+
+    /** The start of a segment file's name */
+    public static final String PREFIX = "journal-";
+
+    /** The end of a segment file's name */
+    public static final String SUFFIX = ".log";
+
+    /** The directory holding the segments */
+    private final Path directory;
+
+    /** The longest a record waits to be synced, in nanoseconds */
+    private final long syncNanos;
+
+    /** The thread syncing records */
+    private final Thread syncer;
+
+    /** The file of the segment being written */
+    private FileChannel channel;
+
+    /** The segment being written */
+    private MappedByteBuffer segment;
+
+    /** The number of the segment being written */
+    private long index;
+
+    /** Where the next record goes in the segment */
+    private int position;
+
+    /** The first byte of the segment not yet synced */
+    private int synced;
+
+    /** Whether the journal is closed */
+    private volatile boolean closed;
+
+    /** Records appended */
+    private final LongAdder records = new LongAdder();
+
+    /** Bytes appended */
+    private final LongAdder bytes = new LongAdder();
+
+    /** Syncs done */
+    private final LongAdder syncs = new LongAdder();
+
+    /**
+     * Open a journal in a directory, creating it if needed, and start a new
+     * segment after any already there
+     *
+     * @param directory the directory
+     * @param syncMillis the longest a record waits to be synced, at least 1
+     * @throws IOException if the directory or segment can't be created
+     * @throws IllegalArgumentException if the sync interval is below 1
+     */
+    public Journal(Path directory, int syncMillis) throws IOException {
+        if(syncMillis < 1)
+            throw new IllegalArgumentException("sync interval must be at " +
+                    "least 1 ms");
+        this.directory = Files.createDirectories(directory);
+        this.syncNanos = TimeUnit.MILLISECONDS.toNanos(syncMillis);
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                PREFIX + "*" + SUFFIX)){
+            for(Path file : files){
+                long n = segmentIndex(file);
+                if(n >= index)
+                    index = n + 1;
+            }
+        }
+        open();
+        this.syncer = new Thread(this::syncLoop, "Journal-sync");
+        this.syncer.setDaemon(true);
+        this.syncer.start();
+    }
+
+    /**
+     * Append a message's record
+     *
+     * @param time when the message was delivered, in epoch milliseconds
+     * @param source where it came from, or null if not known
+     * @param hi the first 64 bits of its datagram's digest
+     * @param lo the next 64 bits of its datagram's digest
+     * @param plainText the message
+     * @throws IOException if a new segment can't be started
+     * @throws IllegalArgumentException if the record is bigger than a segment
+     */
+    public void append(long time, SocketAddress source, long hi, long lo,
+                       String plainText) throws IOException {
+        byte[] text = plainText.getBytes(StandardCharsets.UTF_8);
+        byte[] address = new byte[0];
+        int port = 0;
+        if(source instanceof InetSocketAddress
+                && ((InetSocketAddress) source).getAddress() != null){
+            address = ((InetSocketAddress) source).getAddress().getAddress();
+            port = ((InetSocketAddress) source).getPort();
+        }
+        int length = FIXED + address.length + text.length;
+        if(HEADER + length > SEGMENT)
+            throw new IllegalArgumentException("message too long to journal");
+
+        // build the record off the lock, so only the copy is serialized
+        ByteBuffer record = ByteBuffer.allocate(HEADER + length);
+        record.position(HEADER);
+        record.putLong(time).putLong(hi).putLong(lo).putShort((short) port)
+                .put((byte) address.length).put(address).put(text);
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), HEADER, length);
+        record.putInt(0, length).putInt(4, (int) crc.getValue());
+
+        synchronized(this){
+            if(closed)
+                return;
+            if(position + record.capacity() > SEGMENT)
+                roll();
+            // the length goes in last, so a record cut off midway never looks
+            // whole
+            segment.position(position + 4);
+            segment.put(record.array(), 4, record.capacity() - 4);
+            segment.putInt(position, length);
+            position += record.capacity();
+        }
+        records.increment();
+        bytes.add(record.capacity());
+    }
+
+    /**
+     * Sync everything appended and stop the sync thread. Records appended
+     * after this are dropped
+     *
+     * @throws InterruptedException if interrupted waiting for the last sync
+     */
+    public void close() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(syncer);
+        syncer.join();
+    }
+
+    /**
+     * Sync every interval until closed, then once more
+     */
+    private void syncLoop(){
+        while(!closed){
+            LockSupport.parkNanos(syncNanos);
+            sync();
+        }
+        sync();
+        synchronized(this){
+            try{
+                channel.close();
+            } catch (IOException e){
+                System.err.println("Journal close failed: " + e);
+            }
+        }
+    }
+
+    /**
+     * Force the records appended since the last sync to disk. Appending goes
+     * on while the force runs
+     */
+    private void sync(){
+        MappedByteBuffer toSync;
+        int from;
+        int to;
+        synchronized(this){
+            toSync = segment;
+            from = synced;
+            to = position;
+            synced = position;
+        }
+        if(to > from){
+            toSync.force(from, to - from);
+            syncs.increment();
+        }
+    }
+
+    /**
+     * Finish the current segment, syncing what's left of it, and start the
+     * next one. Only called holding the lock
+     *
+     * @throws IOException if the next segment can't be created
+     */
+    private void roll() throws IOException {
+        if(position > synced)
+            segment.force(synced, position - synced);
+        channel.close();
+        index++;
+        open();
+    }
+
+    /**
+     * Create and map the segment numbered index
+     *
+     * @throws IOException if it can't be created
+     */
+    private void open() throws IOException {
+        channel = FileChannel.open(directory.resolve(segmentName(index)),
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, SEGMENT);
+        position = 0;
+        synced = 0;
+    }
+
+    /**
+     * @param index a segment's number
+     * @return its file name, numbered so names sort in order
+     */
+    public static String segmentName(long index){
+        return String.format("%s%016d%s", PREFIX, index, SUFFIX);
+    }
+
+    /**
+     * @param file a segment file
+     * @return its number, or -1 if its name isn't a segment's
+     */
+    public static long segmentIndex(Path file){
+        String name = file.getFileName().toString();
+        if(!name.startsWith(PREFIX) || !name.endsWith(SUFFIX))
+            return -1;
+        try{
+            return Long.parseLong(name.substring(PREFIX.length(),
+                    name.length() - SUFFIX.length()));
+        } catch (NumberFormatException nfe){
+            return -1;
+        }
+    }
+
+    @Override
+    public synchronized long getSegment(){
+        return index;
+    }
+
+    @Override
+    public long getRecords(){
+        return records.sum();
+    }
+
+    @Override
+    public long getBytes(){
+        return bytes.sum();
+    }
+
+    @Override
+    public long getSyncs(){
+        return syncs.sum();
+    }
+
+    @Override
+    public long getSyncMillis(){
+        return TimeUnit.NANOSECONDS.toMillis(syncNanos);
+    }
+}
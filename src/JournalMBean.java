@@ -0,0 +1,43 @@
+/*
+ * @filename JournalMBean.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The JMX view of a Journal
+ */
+
+/**
+ * What JMX can read from a {@link Journal}
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public interface JournalMBean {
+
+    /**
+     * @return the number of the segment being written
+     */
+    long getSegment();
+
+    /**
+     * @return the number of records appended
+     */
+    long getRecords();
+
+    /**
+     * @return the number of bytes appended, headers included
+     */
+    long getBytes();
+
+    /**
+     * @return the number of times appended records were forced to disk
+     */
+    long getSyncs();
+
+    /**
+     * @return the longest a record waits to be forced to disk, in
+     * milliseconds
+     */
+    long getSyncMillis();
+}
@@ -0,0 +1,220 @@
+/*
+ * @filename JournalReader.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Prints the records of a Reporter's journal
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.zip.CRC32C;
+
+/**
+ * JournalReader scans the segments of a {@link Journal} in order, each
+ * memory-mapped whole, and prints one line per record: the time, the source,
+ * the datagram digest and the message, separated by tabs. Every record's CRC
+ * is checked. A segment is read up to its first zero length, which is where
+ * its writer stopped, or up to a record that is cut off or doesn't match its
+ * CRC, which is reported on standard error
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class JournalReader {
+
+    /** The usage message */
+    private static final String USAGE = "Usage: java JournalReader " +
+            "<journaldirectory> [-since <epochmillis>]\n";
+
+    /** Where the records are printed */
+    private final Writer out;
+
+    /** The earliest record printed, in epoch milliseconds */
+    private final long since;
+
+    /** Checks each record */
+    private final CRC32C crc = new CRC32C();
+
+    /** The number of records printed */
+    private long printed;
+
+    /**
+     * Create a new JournalReader
+     *
+     * @param out where the records are printed
+     * @param since the earliest record printed, in epoch milliseconds
+     */
+    public JournalReader(Writer out, long since){
+        this.out = out;
+        this.since = since;
+    }
+
+    /**
+     * The driver method
+     *
+     * @param args the command line args
+     */
+    public static void main(String[] args){
+        if(args.length < 1){
+            System.err.println("Missing arguments");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        long since = Long.MIN_VALUE;
+        for(int i = 1; i < args.length; i++){
+            if(args[i].equals("-since") && i + 1 < args.length){
+                try{
+                    since = Long.parseLong(args[++i]);
+                } catch (NumberFormatException nfe){
+                    System.err.printf("'%s' not a valid time\n", args[i]);
+                    System.err.println(USAGE);
+                    System.exit(1);
+                }
+            }
+            else{
+                System.err.printf("'%s' not a valid option\n", args[i]);
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        }
+
+        try(
+                Writer out = new BufferedWriter(new OutputStreamWriter(
+                        System.out, StandardCharsets.UTF_8), 1 << 16)
+                ){
+            JournalReader reader = new JournalReader(out, since);
+            for(Path segment : segments(Paths.get(args[0])))
+                reader.read(segment);
+            out.flush();
+            System.err.printf("%d records\n", reader.printed);
+        } catch (NoSuchFileException | NotDirectoryException e) {
+            System.err.printf("Could not open directory '%s'\n", args[0]);
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * List a journal's segments in the order they were written
+     *
+     * @param directory the journal's directory
+     * @return the segment files
+     * @throws IOException if the directory can't be read
+     */
+    public static List<Path> segments(Path directory) throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try(DirectoryStream<Path> files = Files.newDirectoryStream(directory,
+                Journal.PREFIX + "*" + Journal.SUFFIX)){
+            for(Path file : files)
+                if(Journal.segmentIndex(file) >= 0)
+                    segments.add(file);
+        }
+        segments.sort(Comparator.comparingLong(Journal::segmentIndex));
+        return segments;
+    }
+
+    /**
+     * Print the records of one segment
+     *
+     * @param file the segment file
+     * @throws IOException if it can't be read or the records can't be printed
+     */
+    public void read(Path file) throws IOException {
+        MappedByteBuffer segment;
+        try(FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.READ)){
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0,
+                    channel.size());
+        }
+        int limit = segment.limit();
+        int at = 0;
+        while(at + Journal.HEADER <= limit){
+            int length = segment.getInt(at);
+            if(length == 0)
+                return;
+            if(length < Journal.FIXED
+                    || length > limit - at - Journal.HEADER){
+                System.err.printf("%s: record at byte %d is cut off\n",
+                        file.getFileName(), at);
+                return;
+            }
+            ByteBuffer body = segment.duplicate();
+            body.position(at + Journal.HEADER).limit(at + Journal.HEADER
+                    + length);
+            crc.reset();
+            crc.update(body);
+            if((int) crc.getValue() != segment.getInt(at + 4)){
+                System.err.printf("%s: record at byte %d is corrupt\n",
+                        file.getFileName(), at);
+                return;
+            }
+            print(segment, at + Journal.HEADER, length);
+            at += Journal.HEADER + length;
+        }
+    }
+
+    /**
+     * Print one record
+     *
+     * @param segment the segment holding it
+     * @param at where its fields start, after the header
+     * @param length the length of its fields
+     * @throws IOException if it can't be printed
+     */
+    private void print(MappedByteBuffer segment, int at, int length)
+            throws IOException {
+        long time = segment.getLong(at);
+        if(time < since)
+            return;
+        long hi = segment.getLong(at + 8);
+        long lo = segment.getLong(at + 16);
+        int port = segment.getShort(at + 24) & 0xffff;
+        int addressLength = segment.get(at + 26) & 0xff;
+        int textLength = length - Journal.FIXED - addressLength;
+        if(textLength < 0){
+            System.err.printf("record at byte %d has a bad address\n", at);
+            return;
+        }
+        String source = "-";
+        if(addressLength > 0){
+            byte[] address = new byte[addressLength];
+            segment.get(at + Journal.FIXED, address);
+            source = InetAddress.getByAddress(address).getHostAddress() + ":"
+                    + port;
+        }
+        byte[] text = new byte[textLength];
+        segment.get(at + Journal.FIXED + addressLength, text);
+        out.write(Instant.ofEpochMilli(time).toString());
+        out.write('\t');
+        out.write(source);
+        out.write('\t');
+        out.write(String.format("%016x%016x", hi, lo));
+        out.write('\t');
+        out.write(new String(text, StandardCharsets.UTF_8));
+        out.write('\n');
+        printed++;
+    }
+}
@@ -0,0 +1,356 @@
+/*
+ * @filename KeyGen.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Generates an RSA key pair on every core and writes the public and
+ * private key files, CRT parameters included
+ */
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * KeyGen makes a key pair whose modulus is exactly {@link #BITS} bits, the
+ * size of an OAEP block, and writes a public key file of the exponent and
+ * modulus, and a private key file of the private exponent, modulus, p, q, dP,
+ * dQ and qInv, one decimal number per line, which is what the Leaker and the
+ * Reporter read.
+ * <P>
+ * Each worker thread searches a stretch of odd numbers from a random start
+ * for one prime at a time. A stretch is sieved with the small primes first,
+ * so only candidates with no small factor, about one in nine, get a probable
+ * prime test, and the first two primes found by any workers make the key.
+ * The private key file is created readable by its owner only where the file
+ * system allows it, so it is never readable by anyone else even briefly
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class KeyGen {
+
+    /** The usage message */
+    private static final String USAGE = "Usage: java KeyGen <publickeyfile> " +
+            "<privatekeyfile> [-exponent <e>] [-threads <count>]\n";
+
+    /** The size of the modulus in bits */
+    public static final int BITS = Hybrid.BLOCK * 8;
+
+    /** The default public exponent */
+    public static final BigInteger EXPONENT = BigInteger.valueOf(65537);
+
+    /** The probable prime test's certainty, a 2^-100 chance of a composite */
+    private static final int CERTAINTY = 100;
+
+    /** The number of small primes sieved with */
+    private static final int SIEVE_PRIMES = 2048;
+
+    /** The number of odd candidates in each sieved stretch */
+    private static final int SPAN = 1 << 12;
+
+    /** The closest p and q may be, so the modulus can't be factored from
+     * its square root */
+    private static final BigInteger MIN_DISTANCE = BigInteger.ONE.shiftLeft(
+            BITS / 2 - 100);
+
+    /** The small primes, from 3 up */
+    private static final int[] SMALL_PRIMES = smallPrimes(SIEVE_PRIMES);
+
+    /** The public exponent */
+    private final BigInteger exponent;
+
+    /** The number of threads searching */
+    private final int threads;
+
+    /** Candidates given a probable prime test */
+    private final LongAdder tested = new LongAdder();
+
+    /**
+     * Create a new KeyGen
+     *
+     * @param exponent the public exponent, odd and greater than 1
+     * @param threads the number of threads to search with
+     * @throws IllegalArgumentException if the exponent is even or too small
+     */
+    public KeyGen(BigInteger exponent, int threads){
+        if(exponent.compareTo(BigInteger.ONE) <= 0 || !exponent.testBit(0))
+            throw new IllegalArgumentException("exponent must be odd and " +
+                    "greater than 1");
+        this.exponent = exponent;
+        this.threads = threads;
+    }
+
+    /**
+     * The driver method
+     *
+     * @param args the command line args
+     */
+    public static void main(String[] args){
+        if(args.length < 2){
+            System.err.println("Missing arguments");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        BigInteger exponent = EXPONENT;
+        int threads = Runtime.getRuntime().availableProcessors();
+        for(int i = 2; i < args.length; i++){
+            if(args[i].equals("-exponent") && i + 1 < args.length){
+                try{
+                    exponent = new BigInteger(args[++i]);
+                } catch (NumberFormatException nfe){
+                    System.err.printf("'%s' not a valid exponent\n", args[i]);
+                    System.err.println(USAGE);
+                    System.exit(1);
+                }
+            }
+            else if(args[i].equals("-threads") && i + 1 < args.length)
+                threads = parsePositive(args[++i], "thread count");
+            else{
+                System.err.printf("'%s' not a valid option\n", args[i]);
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        }
+
+        KeyGen keyGen = null;
+        try{
+            keyGen = new KeyGen(exponent, threads);
+        } catch (IllegalArgumentException iae){
+            System.err.println(iae.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        long start = System.nanoTime();
+        BigInteger[] key = null;
+        try{
+            key = keyGen.generate();
+        } catch (InterruptedException e){
+            Thread.currentThread().interrupt();
+            System.exit(1);
+        }
+        System.err.printf("%d bit key in %d ms, %d candidates tested\n", BITS,
+                (System.nanoTime() - start) / 1_000_000, keyGen.getTested());
+
+        try{
+            write(Paths.get(args[0]), false, key[0], key[1]);
+            write(Paths.get(args[1]), true, key[2], key[1], key[3], key[4],
+                    key[5], key[6], key[7]);
+        } catch (IOException e){
+            System.err.println(e);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generate a key pair
+     *
+     * @return e, n, d, p, q, dP, dQ and qInv
+     * @throws InterruptedException if interrupted while searching
+     */
+    public BigInteger[] generate() throws InterruptedException {
+        BigInteger p;
+        BigInteger q;
+        BigInteger d;
+        BlockingQueue<BigInteger> primes = new LinkedBlockingQueue<>();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try{
+            List<Future<?>> searches = new ArrayList<>();
+            for(int i = 0; i < threads; i++)
+                searches.add(pool.submit(() -> search(primes)));
+            p = primes.take();
+            while(true){
+                q = primes.take();
+                if(p.subtract(q).abs().compareTo(MIN_DISTANCE) < 0)
+                    continue;
+                // ed = 1 mod lcm(p - 1, q - 1), which always exists since
+                // neither p - 1 nor q - 1 shares a factor with e
+                BigInteger pm1 = p.subtract(BigInteger.ONE);
+                BigInteger qm1 = q.subtract(BigInteger.ONE);
+                BigInteger lambda = pm1.divide(pm1.gcd(qm1)).multiply(qm1);
+                d = exponent.modInverse(lambda);
+                // a tiny d could be recovered from e and n
+                if(d.bitLength() > BITS / 2)
+                    break;
+            }
+            for(Future<?> search : searches)
+                search.cancel(true);
+        } finally {
+            pool.shutdownNow();
+        }
+        return new BigInteger[]{exponent, p.multiply(q), d, p, q,
+                d.mod(p.subtract(BigInteger.ONE)),
+                d.mod(q.subtract(BigInteger.ONE)), q.modInverse(p)};
+    }
+
+    /**
+     * @return the number of candidates given a probable prime test so far
+     */
+    public long getTested(){
+        return tested.sum();
+    }
+
+    /**
+     * Find primes for the modulus until interrupted, sieving a stretch of
+     * odd candidates from a random start at a time. Each prime has its top
+     * two bits set, so the product of any two is exactly BITS bits, and p - 1
+     * shares no factor with the exponent
+     *
+     * @param primes gets each prime found
+     */
+    private void search(BlockingQueue<BigInteger> primes){
+        SecureRandom random = new SecureRandom();
+        boolean[] composite = new boolean[SPAN];
+        while(!Thread.currentThread().isInterrupted()){
+            BigInteger base = new BigInteger(BITS / 2, random)
+                    .setBit(BITS / 2 - 1).setBit(BITS / 2 - 2).setBit(0);
+            sieve(base, composite);
+            for(int k = 0; k < SPAN; k++){
+                if(composite[k])
+                    continue;
+                if(Thread.currentThread().isInterrupted())
+                    return;
+                BigInteger candidate = base.add(BigInteger.valueOf(2L * k));
+                if(candidate.bitLength() != BITS / 2)
+                    break;
+                if(!candidate.subtract(BigInteger.ONE).gcd(exponent)
+                        .equals(BigInteger.ONE))
+                    continue;
+                tested.increment();
+                // the next prime in this stretch would be too close to be q
+                if(candidate.isProbablePrime(CERTAINTY)){
+                    primes.add(candidate);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark the candidates base + 2k, for k below SPAN, that a small prime
+     * divides
+     *
+     * @param base the odd first candidate
+     * @param composite gets whether each candidate has a small factor
+     */
+    private static void sieve(BigInteger base, boolean[] composite){
+        Arrays.fill(composite, false);
+        for(int prime : SMALL_PRIMES){
+            int r = base.mod(BigInteger.valueOf(prime)).intValue();
+            // base + 2k = 0 mod prime when k = -r / 2, and 1 / 2 is
+            // (prime + 1) / 2
+            int k = (int) ((long) (prime - r) % prime * ((prime + 1) / 2)
+                    % prime);
+            for(; k < SPAN; k += prime)
+                composite[k] = true;
+        }
+    }
+
+    /**
+     * List the first primes from 3 up
+     *
+     * @param count how many
+     * @return the primes
+     */
+    private static int[] smallPrimes(int count){
+        int[] primes = new int[count];
+        int found = 0;
+        for(int n = 3; found < count; n += 2){
+            boolean prime = true;
+            for(int i = 0; i < found && primes[i] * primes[i] <= n; i++)
+                if(n % primes[i] == 0){
+                    prime = false;
+                    break;
+                }
+            if(prime)
+                primes[found++] = n;
+        }
+        return primes;
+    }
+
+    /**
+     * Write a key file, one decimal number per line
+     *
+     * @param path the file
+     * @param secret whether only the owner may read it
+     * @param numbers the numbers
+     * @throws IOException if the file can't be written
+     */
+    private static void write(Path path, boolean secret, BigInteger... numbers)
+            throws IOException {
+        StringBuilder text = new StringBuilder();
+        for(BigInteger number : numbers){
+            if(text.length() > 0)
+                text.append('\n');
+            text.append(number);
+        }
+        byte[] bytes = text.toString().getBytes(StandardCharsets.US_ASCII);
+        if(!secret){
+            Files.write(path, bytes);
+            return;
+        }
+
+        // an old file keeps its permissions, so it goes and the new one is
+        // created with the owner's alone
+        Files.deleteIfExists(path);
+        Set<StandardOpenOption> options = EnumSet.of(
+                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        SeekableByteChannel channel;
+        try{
+            channel = Files.newByteChannel(path, options,
+                    PosixFilePermissions.asFileAttribute(
+                            PosixFilePermissions.fromString("rw-------")));
+        } catch (UnsupportedOperationException uoe){
+            // not a POSIX file system, leave it be
+            channel = Files.newByteChannel(path, options);
+        }
+        try(SeekableByteChannel out = channel){
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            while(buf.hasRemaining())
+                out.write(buf);
+        }
+    }
+
+    /**
+     * Parse a number that must be at least 1
+     *
+     * @param str the string to parse
+     * @param what what the number is, for the error message
+     * @return the number
+     */
+    private static int parsePositive(String str, String what){
+        int value = 0;
+        try{
+            value = Integer.parseInt(str);
+        } catch (NumberFormatException nfe){
+            value = 0;
+        }
+        if(value < 1){
+            System.err.printf("'%s' not a valid %s\n", str, what);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        return value;
+    }
+}
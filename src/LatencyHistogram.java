@@ -0,0 +1,121 @@
+/*
+ * @filename LatencyHistogram.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  A lock free histogram of times with power of two buckets
+ */
+
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A LatencyHistogram counts times in nanoseconds into 65 power of two buckets.
+ * Every bucket is a LongAdder, so threads recording at the same time update
+ * separate cells instead of fighting over one counter, and recording never
+ * takes a lock
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class LatencyHistogram implements LatencyHistogramMBean {
+
+    /** Nanoseconds per microsecond */
+    private static final double NANOS_PER_MICRO = 1000.0;
+
+    /** The buckets, bucket i holds times from 2^(i-1) up to 2^i */
+    private final LongAdder[] buckets = new LongAdder[Long.SIZE + 1];
+
+    /** The sum of all the recorded times */
+    private final LongAdder sum = new LongAdder();
+
+    /** The largest recorded time */
+    private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+    /**
+     * Create a new LatencyHistogram
+     */
+    public LatencyHistogram(){
+        for(int i = 0; i < buckets.length; i++)
+            buckets[i] = new LongAdder();
+    }
+
+    /**
+     * Record a time
+     *
+     * @param nanos the time in nanoseconds, negative times count as 0
+     */
+    public void record(long nanos){
+        if(nanos < 0)
+            nanos = 0;
+        buckets[Long.SIZE - Long.numberOfLeadingZeros(nanos)].increment();
+        sum.add(nanos);
+        max.accumulate(nanos);
+    }
+
+    @Override
+    public long getCount(){
+        long count = 0;
+        for(LongAdder bucket : buckets)
+            count += bucket.sum();
+        return count;
+    }
+
+    @Override
+    public double getMeanMicros(){
+        long count = getCount();
+        return count == 0 ? 0 : sum.sum() / NANOS_PER_MICRO / count;
+    }
+
+    @Override
+    public double getP50Micros(){
+        return percentile(0.50);
+    }
+
+    @Override
+    public double getP90Micros(){
+        return percentile(0.90);
+    }
+
+    @Override
+    public double getP99Micros(){
+        return percentile(0.99);
+    }
+
+    @Override
+    public double getMaxMicros(){
+        return max.get() / NANOS_PER_MICRO;
+    }
+
+    @Override
+    public long[] getBuckets(){
+        long[] counts = new long[buckets.length];
+        for(int i = 0; i < counts.length; i++)
+            counts[i] = buckets[i].sum();
+        return counts;
+    }
+
+    /**
+     * Find the upper bound of the bucket a percentile falls in
+     *
+     * @param fraction the percentile as a fraction between 0 and 1
+     * @return the upper bound in microseconds, 0 if nothing was recorded
+     */
+    private double percentile(double fraction){
+        long[] counts = getBuckets();
+        long total = 0;
+        for(long count : counts)
+            total += count;
+        if(total == 0)
+            return 0;
+        long rank = (long)Math.ceil(fraction * total);
+        long seen = 0;
+        for(int i = 0; i < counts.length; i++){
+            seen += counts[i];
+            if(seen >= rank)
+                return Math.min(Math.pow(2, i), max.get()) / NANOS_PER_MICRO;
+        }
+        return getMaxMicros();
+    }
+}
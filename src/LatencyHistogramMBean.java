@@ -0,0 +1,55 @@
+/*
+ * @filename LatencyHistogramMBean.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The JMX view of a LatencyHistogram
+ */
+
+/**
+ * What JMX can read from a {@link LatencyHistogram}. Percentiles are the upper
+ * bound of the power of two bucket they fall in, so they are accurate to
+ * within a factor of two
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public interface LatencyHistogramMBean {
+
+    /**
+     * @return the number of recorded times
+     */
+    long getCount();
+
+    /**
+     * @return the mean of the recorded times in microseconds
+     */
+    double getMeanMicros();
+
+    /**
+     * @return the median in microseconds
+     */
+    double getP50Micros();
+
+    /**
+     * @return the 90th percentile in microseconds
+     */
+    double getP90Micros();
+
+    /**
+     * @return the 99th percentile in microseconds
+     */
+    double getP99Micros();
+
+    /**
+     * @return the largest recorded time in microseconds
+     */
+    double getMaxMicros();
+
+    /**
+     * @return the count in each bucket, bucket i holds times in nanoseconds
+     * from 2^(i-1) up to but not including 2^i
+     */
+    long[] getBuckets();
+}
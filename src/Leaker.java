@@ -7,12 +7,18 @@
  *  The Leaker sends encrypted UDP messages to a Reporter
  */
 
+import java.io.BufferedReader;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.math.BigInteger;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
 import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
 import java.util.Scanner;
 
 /**
@@ -20,7 +26,15 @@ import java.util.Scanner;
  * the command line and then encoded using the {@link OAEP} class to transform
  * it into a BigInteger. Once converted to a BigInteger, the RSA algorithm
  * is applied to it using the keys read from the command line args. Once
- * encrypted it is packed up nicely into a UDP packet and sent to the reporter
+ * encrypted it is packed up nicely into a UDP packet and sent to the reporter.
+ * If the message is "-" or "@file" the Leaker instead stays up and sends one
+ * message per line of standard input or of the file, which may be a named pipe.
+ * With "-session" every message is sent in one hybrid encrypted session. With
+ * "-coalesce" short streamed lines that come within that many milliseconds of
+ * each other are packed into one OAEP block. With "-frame" up to that many
+ * ciphertexts are sent together in each datagram. With "-reliable" every
+ * datagram is retransmitted until the Reporter acks it, with up to that many
+ * in flight at once
  *
  * @author Chris Tremblay (cst1465)
  * @version 4/13/2021
@@ -29,7 +43,30 @@ public class Leaker {
 
     /** The usage message */
     private static final String USAGE = "Usage: java Leaker <rhost> <rport> " +
-            "<lhost> <lport> <publickeyfile> <message>\n";
+            "<lhost> <lport> <publickeyfile> <message | - | @file> " +
+            "[-session] [-coalesce <millis> [-coalesce-bytes <bytes>]] " +
+            "[-frame <slots>] [-reliable <window>]\n";
+
+    /** The message argument that streams lines from standard input */
+    private static final String STDIN = "-";
+
+    /** The prefix of a message argument that streams lines from a file */
+    private static final String FILE_PREFIX = "@";
+
+    /** The option that sends every message in one hybrid session */
+    private static final String SESSION = "-session";
+
+    /** The option that packs streamed lines into shared blocks */
+    private static final String COALESCE = "-coalesce";
+
+    /** The option that limits the payload of a coalesced block */
+    private static final String COALESCE_BYTES = "-coalesce-bytes";
+
+    /** The option that sends several ciphertexts per datagram */
+    private static final String FRAME = "-frame";
+
+    /** The option that retransmits datagrams until they are acked */
+    private static final String RELIABLE = "-reliable";
 
     /**
      * The driver function
@@ -96,11 +133,28 @@ public class Leaker {
             System.exit(1);
         }
 
-        // the message
-        if(args.length > 6){
-            System.err.println("Please wrap message in quotes");
-            System.err.println(USAGE);
-            System.exit(1);
+        // the options after the message
+        boolean session = false;
+        int coalesce = 0;
+        int coalesceBytes = OAEP.MAX_MESSAGE;
+        int frame = 0;
+        int window = 0;
+        for(int i = 6; i < args.length; i++){
+            if(args[i].equals(SESSION))
+                session = true;
+            else if(args[i].equals(COALESCE) && i + 1 < args.length)
+                coalesce = parseOption(args[++i], "window");
+            else if(args[i].equals(COALESCE_BYTES) && i + 1 < args.length)
+                coalesceBytes = parseOption(args[++i], "block size");
+            else if(args[i].equals(FRAME) && i + 1 < args.length)
+                frame = parseOption(args[++i], "slot count");
+            else if(args[i].equals(RELIABLE) && i + 1 < args.length)
+                window = parseOption(args[++i], "window");
+            else{
+                System.err.println("Please wrap message in quotes");
+                System.err.println(USAGE);
+                System.exit(1);
+            }
         }
 
         String message = null;
@@ -111,7 +165,45 @@ public class Leaker {
         }
 
         ReporterProxy proxy = new ReporterProxy(lsocket, rInetAddr);
-        LeakerModel model = new LeakerModel(exponent, modulus, message, proxy);
+        LeakerModel model = new LeakerModel(exponent, modulus, proxy);
+        model.setSessions(session);
+        try{
+            model.setCoalescing(coalesce, coalesceBytes);
+            proxy.setFraming(modulus, frame);
+            if(window != 0)
+                proxy.setReliable(window);
+        } catch (IllegalArgumentException iae){
+            System.err.println(iae.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        if(!message.equals(STDIN) && !message.startsWith(FILE_PREFIX)){
+            model.send(message);
+            drain(proxy);
+            return;
+        }
+
+        // stream one message per line
+        try(
+                InputStream in = message.equals(STDIN)
+                        ? System.in
+                        : new FileInputStream(message.substring(1));
+                BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(in, StandardCharsets.UTF_8))
+                ){
+            model.stream(reader, Runtime.getRuntime().availableProcessors());
+        } catch (FileNotFoundException e) {
+            e.printStackTrace(System.err);
+            System.err.printf("Could not open file '%s'\n",
+                    message.substring(1));
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(1);
+        }
+        drain(proxy);
+        lsocket.close();
     }
 
     /**
@@ -132,6 +224,41 @@ public class Leaker {
         return -1;
     }
 
+    /**
+     * Wait for the proxy to deliver everything, and say how much was lost
+     *
+     * @param proxy the proxy
+     */
+    private static void drain(ReporterProxy proxy){
+        try{
+            proxy.drain();
+        } catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+        }
+        ReliableSender reliable = proxy.getReliable();
+        if(reliable != null && reliable.getLost() > 0)
+            System.err.printf("%d datagrams not acknowledged\n",
+                    reliable.getLost());
+    }
+
+    /**
+     * Parse the number after an option
+     *
+     * @param str the string to try to parse into an int
+     * @param what what the number is, for the error message
+     * @return the integer (hopefully)
+     */
+    private static int parseOption(String str, String what){
+        try{
+            return Integer.parseInt(str);
+        } catch (NumberFormatException nfe){
+            System.err.printf("'%s' not a valid %s\n", str, what);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        return -1;
+    }
+
     /**
      * De-clutter the main method by using this function
      *
@@ -0,0 +1,49 @@
+/*
+ * @filename LeakerBytesListener.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The byte oriented counterpart of LeakerListener, for the wire path
+ */
+
+import java.net.SocketAddress;
+
+/**
+ * A Leaker can report something to a Reporter as the raw bytes of the
+ * encrypted message, exactly as they came off the wire. This saves converting
+ * to a BigInteger and back when the bytes are only being passed along. The
+ * bytes are only valid for the length of the call, so a listener that keeps
+ * them has to copy them
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public interface LeakerBytesListener {
+
+    /**
+     * Report one encrypted message
+     *
+     * @param source where the message came from, or null if not known
+     * @param buf the buffer holding the big-endian two's complement message
+     * @param off where the message starts in the buffer
+     * @param len the length of the message
+     */
+    void report(SocketAddress source, byte[] buf, int off, int len);
+
+    /**
+     * Report a batch of messages that share one buffer. By default each one
+     * is reported in turn
+     *
+     * @param sources where each message came from
+     * @param buf the buffer holding the messages
+     * @param offs where each message starts in the buffer
+     * @param lens the length of each message
+     * @param count how many messages to report
+     */
+    default void reportAll(SocketAddress[] sources, byte[] buf, int[] offs,
+                           int[] lens, int count){
+        for(int i = 0; i < count; i++)
+            report(sources[i], buf, offs[i], lens[i]);
+    }
+}
@@ -0,0 +1,269 @@
+/*
+ * @filename LeakerChannelProxy.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  A LeakerProxy built on a non-blocking DatagramChannel that receives packets
+ * in batches
+ */
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ClosedSelectorException;
+import java.nio.channels.DatagramChannel;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+
+/**
+ * The LeakerChannelProxy does the same job as the {@link LeakerProxy}, but
+ * instead of a blocking receive per packet it waits on a selector, and every
+ * time the channel is readable it drains all the queued datagrams into a
+ * preallocated direct buffer. The whole batch is then given to the listener
+ * in one call, as BigIntegers or, for a {@link LeakerBytesListener}, as the
+ * raw bytes. A {@link Framed} datagram is unpacked into one entry of the
+ * batch per ciphertext, and a {@link Reliable} one is acked and whatever it
+ * carries handled the same way
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class LeakerChannelProxy {
+
+    /** The buffer size, the same as LeakerProxy's */
+    private static final int BUFFER_SIZE = Hybrid.MAX_DATAGRAM;
+
+    /** The most datagrams handed to the listener at once */
+    private static final int MAX_BATCH = 64;
+
+    /** The channel to receive from */
+    private final DatagramChannel channel;
+
+    /** The listener */
+    private LeakerListener listener;
+
+    /** The raw bytes listener, used instead of the listener if set */
+    private LeakerBytesListener bytesListener;
+
+    /** The key id framed datagrams must carry */
+    private int keyId;
+
+    /** Whether framed datagrams are accepted */
+    private boolean framed;
+
+    /** What each reliable sender has sent, null if not accepted */
+    private AckTracker acks;
+
+    /**
+     * Create a new LeakerChannelProxy
+     *
+     * @param channel the bound channel
+     */
+    public LeakerChannelProxy(DatagramChannel channel){
+        this.channel = channel;
+    }
+
+    /**
+     * Accept {@link Framed} datagrams for the given key. Until this is called
+     * every framed datagram is rejected. Call it before setting a listener
+     *
+     * @param keyId the key id of the private key's modulus
+     */
+    public void setKeyId(int keyId){
+        this.keyId = keyId;
+        this.framed = true;
+    }
+
+    /**
+     * Accept {@link Reliable} datagrams, acking each from this proxy's
+     * socket. Until this is called every reliable datagram is rejected. Call
+     * it before setting a listener
+     *
+     * @param acks remembers what each reliable sender has sent, or null to
+     *             reject reliable datagrams
+     */
+    public void setAckTracker(AckTracker acks){
+        this.acks = acks;
+    }
+
+    /**
+     * Set the listener, and once the listener is known then spin up a thread
+     * that listens for UDP packets
+     *
+     * @param listener the listner that will take the info from the packet
+     */
+    public void setListener(LeakerListener listener){
+        this.listener = listener;
+        new ReaderThread().start();
+    }
+
+    /**
+     * Set a listener that gets the payloads as raw bytes, and once the
+     * listener is known then spin up a thread that listens for UDP packets
+     *
+     * @param bytesListener the listener that will take the bytes
+     */
+    public void setBytesListener(LeakerBytesListener bytesListener){
+        this.bytesListener = bytesListener;
+        new ReaderThread().start();
+    }
+
+    /**
+     * This class is a thread that drains the channel every time the selector
+     * says it is readable
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private class ReaderThread extends Thread{
+        public void run(){
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            byte[] payloads = new byte[MAX_BATCH * BUFFER_SIZE];
+            int[] offs = new int[MAX_BATCH];
+            int[] lens = new int[MAX_BATCH];
+            SocketAddress[] sources = new SocketAddress[MAX_BATCH];
+            BigInteger[] batch = new BigInteger[MAX_BATCH];
+            ReporterStats stats = ReporterStats.get();
+            byte[] ack = new byte[Reliable.ACK_SIZE];
+            ByteBuffer ackBuffer = ByteBuffer.wrap(ack);
+            try(
+                    Selector selector = Selector.open()
+                    ){
+                channel.configureBlocking(false);
+                channel.register(selector, SelectionKey.OP_READ);
+                while(true) {
+                    selector.select();
+                    selector.selectedKeys().clear();
+
+                    // drain everything that is queued, a batch at a time.
+                    // A datagram takes at most BUFFER_SIZE bytes and, when
+                    // framed, MAX_SLOTS entries
+                    boolean full;
+                    do {
+                        int count = 0;
+                        int pos = 0;
+                        SocketAddress source = null;
+                        while(count + Framed.MAX_SLOTS <= MAX_BATCH){
+                            try{
+                                source = channel.receive(buffer);
+                            } catch (ClosedChannelException e){
+                                throw e;
+                            } catch (IOException e){
+                                // count it and keep receiving
+                                buffer.clear();
+                                stats.receiveError();
+                                System.err.println(e);
+                                continue;
+                            }
+                            if(source == null)
+                                break;
+                            buffer.flip();
+                            int len = buffer.remaining();
+                            stats.packetReceived(len);
+                            buffer.get(payloads, pos, len);
+                            buffer.clear();
+                            int off = pos;
+                            if(len > 0 && payloads[off] == Reliable.ENVELOPE){
+                                if(!unwrap(source, payloads, off, len, ack,
+                                        ackBuffer))
+                                    continue;
+                                off += Reliable.HEADER;
+                                len -= Reliable.HEADER;
+                            }
+                            int added = 1;
+                            offs[count] = off;
+                            lens[count] = len;
+                            if(len > 0 && payloads[off] == Framed.FRAME){
+                                added = framed ? Framed.unpack(payloads, off,
+                                        len, keyId, offs, lens, count) : -1;
+                                if(added < 0){
+                                    stats.frameRejected();
+                                    continue;
+                                }
+                            }
+                            for(int i = 0; i < added; i++)
+                                sources[count++] = source;
+                            pos = off + len;
+                        }
+                        full = source != null;
+                        if(bytesListener != null)
+                            bytesListener.reportAll(sources, payloads, offs,
+                                    lens, count);
+                        else
+                            report(payloads, offs, lens, count, batch);
+                    } while(full);
+                }
+            } catch (ClosedChannelException | ClosedSelectorException e) {
+                // the channel was closed, nothing left to receive
+            } catch (IOException e) {
+                ReporterStats.get().receiveError();
+                e.printStackTrace(System.err);
+            }
+        }
+
+        /**
+         * Ack a reliable datagram. If the channel can't take the ack right
+         * away, or can't send it at all, it is dropped and the sender's
+         * retransmit brings another
+         *
+         * @param source where the datagram came from
+         * @param payloads the buffer holding it
+         * @param off where the datagram starts
+         * @param len the length of the datagram
+         * @param ack where to build the ack
+         * @param ackBuffer wraps ack
+         * @return true if what it carries is new and should be handled
+         * @throws ClosedChannelException if the channel has been closed
+         */
+        private boolean unwrap(SocketAddress source, byte[] payloads, int off,
+                               int len, byte[] ack, ByteBuffer ackBuffer)
+                throws ClosedChannelException {
+            if(acks == null){
+                // an envelope is a type this receiver wasn't set up for
+                ReporterStats.get().lengthRejected();
+                return false;
+            }
+            boolean fresh = acks.receive(source, payloads, off, len, ack);
+            if(ack[0] == Reliable.ACK){
+                ackBuffer.clear();
+                try{
+                    channel.send(ackBuffer, source);
+                } catch (ClosedChannelException e){
+                    throw e;
+                } catch (IOException e){
+                    // a spoofed source can be one nothing can be sent to
+                    ReporterStats.get().receiveError();
+                    System.err.println(e);
+                }
+            }
+            return fresh;
+        }
+
+        /**
+         * Turn the payloads into BigIntegers and report them to the listener
+         *
+         * @param payloads the buffer holding the payloads
+         * @param offs where each payload starts
+         * @param lens the length of each payload
+         * @param count how many payloads there are
+         * @param batch where to put the BigIntegers
+         */
+        private void report(byte[] payloads, int[] offs, int[] lens,
+                            int count, BigInteger[] batch){
+            int good = 0;
+            for(int i = 0; i < count; i++){
+                try {
+                    batch[good] = new BigInteger(payloads, offs[i], lens[i]);
+                    good++;
+                } catch (NumberFormatException nfe) {
+                    ReporterStats.get().numberFormatFailure();
+                    System.err.println("ERROR");
+                }
+            }
+            listener.reportAll(batch, good);
+        }
+    }
+}
@@ -12,7 +12,9 @@ import java.math.BigInteger;
 
 /**
  * A Leaker can report something to a Reporter using BigInteger as the
- * encrypted message
+ * encrypted message. Receivers that pick up several messages at once can hand
+ * them over together with reportAll, and senders that hold messages back to
+ * send several at once give them up on flush
  *
  * @author Chris Tremblay (cst1465)
  * @version 4/218/2021
@@ -21,4 +23,21 @@ public interface LeakerListener {
 
     void report(BigInteger bi);
 
+    /**
+     * Report a batch of messages. By default each one is reported in turn
+     *
+     * @param batch the encoded, then RSA encrypted BigIntegers
+     * @param count how many of the batch's leading entries to report
+     */
+    default void reportAll(BigInteger[] batch, int count){
+        for(int i = 0; i < count; i++)
+            report(batch[i]);
+    }
+
+    /**
+     * Send anything held back. By default nothing is held back
+     */
+    default void flush(){
+    }
+
 }
@@ -8,12 +8,39 @@
  * the message properly
  */
 
+import java.io.BufferedReader;
+import java.io.IOException;
 import java.math.BigInteger;
-import java.util.Random;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
 
 /**
  * The LeakerModel first uses the OAEP to encode the string, then a BigInteger
- * to encrypt the message using RSA
+ * to encrypt the message using RSA. A model can send a single message, or
+ * stay alive and stream one message per line of input, encrypting lines on a
+ * pool of threads while earlier ones are being sent. A message too long for
+ * one OAEP block is sent {@link Hybrid} encrypted instead, if the listener
+ * can take raw datagrams: only its AES key is RSA encrypted. With sessions
+ * turned on, every message is sent in one long lived hybrid session, so the
+ * Reporter decrypts one RSA block per session rather than one per message.
+ * The session's key datagram is repeated every so often, in case it was lost
+ * or the Reporter has forgotten the session. Without sessions, streamed lines
+ * can instead be {@link Coalesced}: short lines that arrive within a small
+ * window of each other are packed into one OAEP block and share its RSA
+ * encryption
  *
  * @author Chris Tremblay (cst1465)
  * @version 4/28/2021
@@ -23,8 +50,24 @@ public class LeakerModel {
     /** The seed size */
     private static final int SEED_SIZE = 32;
 
-    /** The OAEP instance */
-    private final OAEP oaep;
+    /** How many encrypted lines may wait per thread, ahead of the sender */
+    private static final int LINES_AHEAD = 4;
+
+    /** Messages sent in a session before its key datagram is sent again */
+    private static final int KEY_REPEAT = 32;
+
+    /** Time before a session's key datagram is sent again, in nanoseconds */
+    private static final long KEY_REPEAT_NANOS = 30_000_000_000L;
+
+    /** The OAEP instances, one per encrypting thread */
+    private final ThreadLocal<OAEP> oaep = ThreadLocal.withInitial(OAEP::new);
+
+    /** The AES-GCM ciphers, one per encrypting thread */
+    private final ThreadLocal<Cipher> gcm =
+            ThreadLocal.withInitial(Hybrid::newCipher);
+
+    /** Where hybrid session keys and ids and OAEP seeds come from */
+    private final SecureRandom secureRandom = new SecureRandom();
 
     /** The exponent of the reporters public key */
     private final BigInteger exponent;
@@ -32,12 +75,25 @@ public class LeakerModel {
     /** The modulus of the reporters public key */
     private final BigInteger modulus;
 
-    /** The message the leaker is going to send to the reporter */
-    private final String message;
-
     /** The proxy that is listening to the model */
     private final LeakerListener listener;
 
+    /** The listener, if it can send raw datagrams, otherwise null */
+    private final LeakerBytesListener bytesListener;
+
+    /** Whether every message is sent in the long lived session */
+    private boolean sessions;
+
+    /** The long lived session, null until the first message is sent in it */
+    private Session session;
+
+    /** How long a streamed line may wait for others to share its block, in
+     * nanoseconds, or 0 to send every line on its own */
+    private long coalesceNanos;
+
+    /** The most bytes of payload in a coalesced block */
+    private int coalesceLimit = OAEP.MAX_MESSAGE;
+
     /**
      * Create a new LeakerModel
      *
@@ -48,20 +104,405 @@ public class LeakerModel {
      */
     public LeakerModel(BigInteger exponent, BigInteger modulus, String message,
                        LeakerListener listener){
+        this(exponent, modulus, listener);
+        send(message);
+    }
+
+    /**
+     * Create a new LeakerModel that sends nothing until told to
+     *
+     * @param exponent the public key exponent
+     * @param modulus the public key modulus
+     * @param listener the listened to send the information through
+     */
+    public LeakerModel(BigInteger exponent, BigInteger modulus,
+                       LeakerListener listener){
         this.exponent = exponent;
         this.modulus = modulus;
-        this.message = message;
         this.listener = listener;
-        this.oaep = new OAEP();
-        send();
+        this.bytesListener = listener instanceof LeakerBytesListener
+                ? (LeakerBytesListener) listener : null;
+    }
+
+    /**
+     * Send every message from now on in one long lived hybrid session, if the
+     * listener can take raw datagrams
+     *
+     * @param sessions true to use the session, false to only use hybrid
+     *                 encryption for long messages
+     */
+    public synchronized void setSessions(boolean sessions){
+        this.sessions = sessions;
+    }
+
+    /**
+     * Pack short streamed lines into shared OAEP blocks. A block is sent when
+     * the next line won't fit in it, or when its first line has waited the
+     * given time. Coalescing is skipped when sessions are on, since a session
+     * already spares the Reporter the RSA operations
+     *
+     * @param windowMillis how long a line may wait for others, 0 to turn
+     *                     coalescing off
+     * @param limit the most payload bytes in a block, from 3 up to
+     *              OAEP.MAX_MESSAGE
+     * @throws IllegalArgumentException if the window is negative or the limit
+     *                                  is out of range
+     */
+    public synchronized void setCoalescing(long windowMillis, int limit){
+        if(windowMillis < 0)
+            throw new IllegalArgumentException("window must not be negative");
+        Coalesced.checkLimit(limit);
+        this.coalesceNanos = TimeUnit.MILLISECONDS.toNanos(windowMillis);
+        this.coalesceLimit = limit;
     }
 
     /**
      * Send the message. Encrypt it, then pass the BigInt to the proxy
+     *
+     * @param message the message to send
+     * @throws IllegalArgumentException if the message is too long to encode
+     */
+    public void send(String message){
+        prepare(message, reserve(message)).run();
+        listener.flush();
+    }
+
+    /**
+     * Send every line of the reader as its own message, in order, until the
+     * end of the input. Lines are encrypted on a pool of threads while the
+     * calling thread sends the ones that are already done. A line that is too
+     * long to encode is reported and skipped. Lines are coalesced if that is
+     * turned on
+     *
+     * @param in the lines to send
+     * @param threads how many threads encrypt lines
+     * @throws IOException if reading the input fails
+     */
+    public void stream(BufferedReader in, int threads) throws IOException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "LeakerModel-encrypt");
+            t.setDaemon(true);
+            return t;
+        });
+        BlockingQueue<Future<Runnable>> encrypted =
+                new ArrayBlockingQueue<>(threads * LINES_AHEAD);
+        Future<Runnable> end = CompletableFuture.completedFuture(null);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+
+        boolean coalesce;
+        synchronized (this){
+            coalesce = coalesceNanos > 0 && !sessions;
+        }
+
+        // read lines on their own thread so sending never waits on input
+        Thread reader = new Thread(() -> {
+            try{
+                if(coalesce)
+                    coalesce(in, encrypted, pool);
+                else{
+                    String line;
+                    int number = 0;
+                    while((line = in.readLine()) != null)
+                        submit(line, ++number, encrypted, pool);
+                }
+            } catch (IOException ioe){
+                failure.set(ioe);
+            } catch (InterruptedException ie){
+                return;
+            }
+            try{
+                encrypted.put(end);
+            } catch (InterruptedException ignored){
+                // nobody is left to send
+            }
+        }, "LeakerModel-reader");
+        reader.setDaemon(true);
+        reader.start();
+
+        // send in input order, flushing whatever the listener holds back
+        // whenever there is nothing more to send yet
+        try{
+            while(true){
+                Future<Runnable> next = encrypted.poll();
+                if(next == null){
+                    listener.flush();
+                    next = encrypted.take();
+                }
+                if(next == end)
+                    break;
+                try{
+                    next.get().run();
+                } catch (ExecutionException ee){
+                    System.err.println(ee.getCause().getMessage());
+                }
+            }
+            listener.flush();
+        } catch (InterruptedException ie){
+            Thread.currentThread().interrupt();
+            reader.interrupt();
+        } finally {
+            pool.shutdownNow();
+        }
+        if(failure.get() != null)
+            throw failure.get();
+    }
+
+    /**
+     * Hand a line to the pool to be encrypted, and queue it to be sent
+     *
+     * @param message the line
+     * @param line its line number, for the error if it can't be sent
+     * @param encrypted the queue of lines to send, in order
+     * @param pool the encrypting threads
+     * @throws InterruptedException if interrupted waiting for room in the
+     *                              queue
+     */
+    private void submit(String message, int line,
+                        BlockingQueue<Future<Runnable>> encrypted,
+                        ExecutorService pool) throws InterruptedException {
+        Ticket ticket = reserve(message);
+        encrypted.put(pool.submit(() -> {
+            try{
+                return prepare(message, ticket);
+            } catch (IllegalArgumentException iae){
+                throw new IllegalArgumentException(String.format(
+                        "line %d not sent: %s", line, iae.getMessage()), iae);
+            }
+        }));
+    }
+
+    /**
+     * Read lines and pack the short ones into coalesced blocks, handing each
+     * block to the pool once it is full or its window has closed. Lines too
+     * long to share a block are sent on their own, in order
+     *
+     * @param in the lines to send
+     * @param encrypted the queue of blocks and lines to send, in order
+     * @param pool the encrypting threads
+     * @throws IOException if reading the input fails
+     * @throws InterruptedException if interrupted
+     */
+    private void coalesce(BufferedReader in,
+                          BlockingQueue<Future<Runnable>> encrypted,
+                          ExecutorService pool)
+            throws IOException, InterruptedException {
+        long window;
+        Coalesced block;
+        synchronized (this){
+            window = coalesceNanos;
+            block = new Coalesced(coalesceLimit);
+        }
+
+        // read on yet another thread, so a block can close while it waits
+        BlockingQueue<String> lines = new ArrayBlockingQueue<>(LINES_AHEAD);
+        AtomicReference<IOException> failure = new AtomicReference<>();
+        String eof = new String();
+        Thread input = new Thread(() -> {
+            try{
+                String line;
+                while((line = in.readLine()) != null)
+                    lines.put(line);
+            } catch (IOException ioe){
+                failure.set(ioe);
+            } catch (InterruptedException ie){
+                return;
+            }
+            try{
+                lines.put(eof);
+            } catch (InterruptedException ignored){
+                // nobody is left to read
+            }
+        }, "LeakerModel-input");
+        input.setDaemon(true);
+        input.start();
+
+        try{
+            int number = 0;
+            long deadline = 0;
+            while(true){
+                String line = block.count() == 0 ? lines.take()
+                        : lines.poll(deadline - System.nanoTime(),
+                        TimeUnit.NANOSECONDS);
+                if(line == null){
+                    flush(block, number, encrypted, pool);
+                    continue;
+                }
+                if(line == eof)
+                    break;
+                number++;
+                byte[] utf8 = line.getBytes(StandardCharsets.UTF_8);
+                if(utf8.length > Coalesced.MAX_MESSAGE){
+                    flush(block, number - 1, encrypted, pool);
+                    submit(line, number, encrypted, pool);
+                    continue;
+                }
+                if(!block.add(line, utf8)){
+                    flush(block, number - 1, encrypted, pool);
+                    block.add(line, utf8);
+                }
+                if(block.count() == 1)
+                    deadline = System.nanoTime() + window;
+            }
+            flush(block, number, encrypted, pool);
+        } finally {
+            input.interrupt();
+        }
+        if(failure.get() != null)
+            throw failure.get();
+    }
+
+    /**
+     * Hand a coalesced block to the pool to be encrypted, and queue it to be
+     * sent. A block holding one line is sent as that line
+     *
+     * @param block the block, emptied
+     * @param line the number of the last line in the block
+     * @param encrypted the queue of blocks and lines to send, in order
+     * @param pool the encrypting threads
+     * @throws InterruptedException if interrupted waiting for room in the
+     *                              queue
+     */
+    private void flush(Coalesced block, int line,
+                       BlockingQueue<Future<Runnable>> encrypted,
+                       ExecutorService pool) throws InterruptedException {
+        if(block.count() == 0)
+            return;
+        if(block.count() == 1){
+            submit(block.first(), line, encrypted, pool);
+            block.take();
+            return;
+        }
+        byte[] payload = block.take();
+        encrypted.put(pool.submit(() -> {
+            BigInteger ciphertext = encryptBlock(payload);
+            return () -> listener.report(ciphertext);
+        }));
+    }
+
+    /**
+     * Decide how a message will be sent, and if it is hybrid encrypted give it
+     * its session and message number. This is done in the order the messages
+     * will be sent, so the Reporter sees their numbers in order
+     *
+     * @param message the message
+     * @return the message's place in a session, or null if it is RSA
+     *         encrypted on its own
      */
-    private void send(){
+    private Ticket reserve(String message){
+        if(bytesListener == null)
+            return null;
+        synchronized (this){
+            if(sessions){
+                if(session == null || session.next == Integer.MAX_VALUE)
+                    session = newSession();
+                return new Ticket(session, session.next++,
+                        session.keyDue(System.nanoTime()));
+            }
+        }
+        // UTF-8 is at most 3 bytes per char, so most messages skip the count
+        if(message.length() * 3 > OAEP.MAX_MESSAGE &&
+                message.getBytes(StandardCharsets.UTF_8).length >
+                        OAEP.MAX_MESSAGE)
+            return new Ticket(newSession(), 0, true);
+        return null;
+    }
+
+    /**
+     * Encrypt a message
+     *
+     * @param message the message to encrypt
+     * @param ticket its place in a hybrid session, or null to RSA encrypt it
+     * @return sends the encrypted message to the listener when run
+     * @throws IllegalArgumentException if the message is too long to send
+     */
+    private Runnable prepare(String message, Ticket ticket){
+        if(ticket != null){
+            List<byte[]> packets = encryptHybrid(
+                    message.getBytes(StandardCharsets.UTF_8), ticket);
+            return () -> {
+                for(byte[] packet : packets)
+                    bytesListener.report(null, packet, 0, packet.length);
+            };
+        }
         BigInteger encrypted = encryptMessage(message);
-        listener.report(encrypted);
+        return () -> listener.report(encrypted);
+    }
+
+    /**
+     * Start a hybrid session with a new AES key, and RSA encrypt the key
+     *
+     * @return the session
+     */
+    private Session newSession(){
+        long id = secureRandom.nextLong();
+        byte[] key = new byte[Hybrid.KEY_BYTES];
+        byte[] seed = new byte[SEED_SIZE];
+        secureRandom.nextBytes(key);
+        secureRandom.nextBytes(seed);
+
+        byte[] packet = new byte[Hybrid.KEY_PACKET];
+        packet[0] = Hybrid.KEY;
+        Hybrid.putLong(packet, 1, id);
+        oaep.get().encode(key, 0, key.length, seed, packet, 9);
+        BigInteger encoded = new BigInteger(1, packet, 9, Hybrid.BLOCK);
+        Hybrid.putBlock(encoded.modPow(exponent, modulus), packet, 9);
+        return new Session(id, new SecretKeySpec(key, "AES"), packet);
+    }
+
+    /**
+     * Encrypt a message a chunk at a time with its session's AES key
+     *
+     * @param message the UTF-8 message
+     * @param ticket the message's session and number
+     * @return the key datagram if it is due, followed by the data datagrams
+     * @throws IllegalArgumentException if the message needs more than
+     *                                  Hybrid.MAX_CHUNKS chunks
+     */
+    private List<byte[]> encryptHybrid(byte[] message, Ticket ticket){
+        int chunks = Math.max(1,
+                (message.length + Hybrid.MAX_CHUNK - 1) / Hybrid.MAX_CHUNK);
+        if(chunks > Hybrid.MAX_CHUNKS)
+            throw new IllegalArgumentException("message is too long");
+        List<byte[]> packets = new ArrayList<>(chunks + 1);
+        if(ticket.withKey)
+            packets.add(ticket.session.keyPacket);
+
+        Cipher cipher = gcm.get();
+        for(int chunk = 0; chunk < chunks; chunk++){
+            int off = chunk * Hybrid.MAX_CHUNK;
+            int len = Math.min(Hybrid.MAX_CHUNK, message.length - off);
+            byte[] packet = new byte[Hybrid.DATA_HEADER + len +
+                    Hybrid.TAG_BYTES];
+            Hybrid.putHeader(packet, 0, ticket.session.id, ticket.number,
+                    chunk, chunks);
+            Hybrid.seal(cipher, ticket.session.key, packet, message, off, len);
+            packets.add(packet);
+        }
+        return packets;
+    }
+
+    /**
+     * Encrypt a coalesced payload
+     *
+     * @param payload the payload, at most OAEP.MAX_MESSAGE bytes
+     * @return the BigInteger that has been encoded and encrypted
+     */
+    private BigInteger encryptBlock(byte[] payload){
+        byte[] block = new byte[Hybrid.BLOCK];
+        oaep.get().encode(payload, 0, payload.length, newSeed(), block, 0);
+        return new BigInteger(block).modPow(exponent, modulus);
+    }
+
+    /**
+     * Encrypt a message without sending it, for tools that send it later.
+     * Any number of threads may encrypt at once
+     *
+     * @param message the message to encrypt
+     * @return the BigInteger that has been encoded and encrypted
+     * @throws IllegalArgumentException if the message is too long to encode
+     */
+    public BigInteger encrypt(String message){
+        return encryptMessage(message);
     }
 
     /**
@@ -71,16 +512,110 @@ public class LeakerModel {
      * @return the BigInteger that has been encoded and encrypted
      */
     private BigInteger encryptMessage(String message){
-        // Create random seed
-        Random random = new Random();
-        byte[] seed = new byte[SEED_SIZE];
-        for(int i = 0; i < seed.length; i++)
-            seed[i] = (byte)random.nextInt();
-
         // BigInteger encodedMessage = oaep
-        BigInteger encoded = oaep.encode(message, seed);
+        BigInteger encoded = oaep.get().encode(message, newSeed());
 
         // encrypt message and return
         return encoded.modPow(exponent, modulus);
     }
+
+    /**
+     * @return a fresh OAEP seed, which must be unpredictable for the padding
+     *         to be secure
+     */
+    private byte[] newSeed(){
+        byte[] seed = new byte[SEED_SIZE];
+        secureRandom.nextBytes(seed);
+        return seed;
+    }
+
+    /**
+     * This class is a hybrid session: its id, its AES key and its RSA
+     * encrypted key datagram
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private static class Session {
+
+        /** The session id */
+        private final long id;
+
+        /** The AES key */
+        private final SecretKeySpec key;
+
+        /** The key datagram */
+        private final byte[] keyPacket;
+
+        /** The next message number */
+        private int next;
+
+        /** Messages sent since the key datagram was last sent */
+        private int sinceKey;
+
+        /** When the key datagram was last sent, in nanoTime */
+        private long keySent;
+
+        /**
+         * Create a new Session
+         *
+         * @param id the session id
+         * @param key the AES key
+         * @param keyPacket the key datagram
+         */
+        Session(long id, SecretKeySpec key, byte[] keyPacket){
+            this.id = id;
+            this.key = key;
+            this.keyPacket = keyPacket;
+        }
+
+        /**
+         * Check whether the key datagram should go with the next message,
+         * and count the message
+         *
+         * @param now the current nanoTime
+         * @return true if the key datagram should be sent
+         */
+        boolean keyDue(long now){
+            if(sinceKey == 0 || sinceKey >= KEY_REPEAT ||
+                    now - keySent >= KEY_REPEAT_NANOS){
+                sinceKey = 1;
+                keySent = now;
+                return true;
+            }
+            sinceKey++;
+            return false;
+        }
+    }
+
+    /**
+     * This class is a hybrid encrypted message's place in its session
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private static class Ticket {
+
+        /** The session */
+        private final Session session;
+
+        /** The message number */
+        private final int number;
+
+        /** Whether the key datagram goes first */
+        private final boolean withKey;
+
+        /**
+         * Create a new Ticket
+         *
+         * @param session the session
+         * @param number the message number
+         * @param withKey whether the key datagram goes first
+         */
+        Ticket(Session session, int number, boolean withKey){
+            this.session = session;
+            this.number = number;
+            this.withKey = withKey;
+        }
+    }
 }
@@ -12,12 +12,15 @@ import java.io.IOException;
 import java.math.BigInteger;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
+import java.net.SocketAddress;
 import java.util.Arrays;
 
 /**
  * The LeakerProxy has an encapsulated DatagramSocket that listens for packets
  * sent to the Reporter then extracts the information and gives it to the
- * listener
+ * listener. A {@link Framed} datagram is unpacked and each of its
+ * ciphertexts given to the listener in turn, and a {@link Reliable} one is
+ * acked and whatever it carries handled the same way
  *
  * @author Chris Tremblay (cst1465)
  * @version 4/28/2021
@@ -25,7 +28,7 @@ import java.util.Arrays;
 public class LeakerProxy {
 
     /** The buffer size */
-    private static final int BUFFER_SIZE = 260;
+    private static final int BUFFER_SIZE = Hybrid.MAX_DATAGRAM;
 
     /** The socket to send through */
     private final DatagramSocket socket;
@@ -33,6 +36,18 @@ public class LeakerProxy {
     /** The listener */
     private LeakerListener listener;
 
+    /** The raw bytes listener, used instead of the listener if set */
+    private LeakerBytesListener bytesListener;
+
+    /** The key id framed datagrams must carry */
+    private int keyId;
+
+    /** Whether framed datagrams are accepted */
+    private boolean framed;
+
+    /** What each reliable sender has sent, null if not accepted */
+    private AckTracker acks;
+
     /**
      * Create a new LeakerProxy
      *
@@ -42,6 +57,29 @@ public class LeakerProxy {
         this.socket = socket;
     }
 
+    /**
+     * Accept {@link Framed} datagrams for the given key. Until this is called
+     * every framed datagram is rejected. Call it before setting a listener
+     *
+     * @param keyId the key id of the private key's modulus
+     */
+    public void setKeyId(int keyId){
+        this.keyId = keyId;
+        this.framed = true;
+    }
+
+    /**
+     * Accept {@link Reliable} datagrams, acking each from this proxy's
+     * socket. Until this is called every reliable datagram is rejected. Call
+     * it before setting a listener
+     *
+     * @param acks remembers what each reliable sender has sent, or null to
+     *             reject reliable datagrams
+     */
+    public void setAckTracker(AckTracker acks){
+        this.acks = acks;
+    }
+
     /**
      * Set the listener, and once the listener is known then spin up a thread
      * that listens for UDP packets
@@ -53,6 +91,19 @@ public class LeakerProxy {
         new ReaderThread().start();
     }
 
+    /**
+     * Set a listener that gets the payload of each packet as raw bytes, and
+     * once the listener is known then spin up a thread that listens for UDP
+     * packets. The payload is passed straight out of the receive buffer
+     * without copying
+     *
+     * @param bytesListener the listener that will take the bytes
+     */
+    public void setBytesListener(LeakerBytesListener bytesListener){
+        this.bytesListener = bytesListener;
+        new ReaderThread().start();
+    }
+
     /**
      * This class is a thread that listens for a UDP packet on the given
      * socket
@@ -64,22 +115,112 @@ public class LeakerProxy {
         public void run(){
             byte[] buffer = new byte[BUFFER_SIZE];
             BigInteger lMessage;
+            ReporterStats stats = ReporterStats.get();
+            int[] offs = new int[Framed.MAX_SLOTS];
+            int[] lens = new int[Framed.MAX_SLOTS];
+            SocketAddress[] sources = new SocketAddress[Framed.MAX_SLOTS];
+            byte[] ack = new byte[Reliable.ACK_SIZE];
             while(true) {
                 try {
                     // get the datagram packet with the encrypted message
                     DatagramPacket dp = new DatagramPacket(buffer, 0, buffer.length);
                     socket.receive(dp);
+                    stats.packetReceived(dp.getLength());
+                    int off = 0;
+                    int len = dp.getLength();
+                    if(len > 0 && buffer[0] == Reliable.ENVELOPE){
+                        if(!unwrap(dp, buffer, ack))
+                            continue;
+                        off = Reliable.HEADER;
+                        len -= Reliable.HEADER;
+                    }
+                    if(len > 0 && buffer[off] == Framed.FRAME){
+                        unframe(dp.getSocketAddress(), buffer, off, len, offs,
+                                lens, sources);
+                        continue;
+                    }
+                    if(bytesListener != null){
+                        bytesListener.report(dp.getSocketAddress(), buffer,
+                                off, len);
+                        continue;
+                    }
 
                     // get payload
-                    byte[] payload = Arrays.copyOf(buffer, dp.getLength());
+                    byte[] payload = Arrays.copyOfRange(buffer, off,
+                            off + len);
                     lMessage = new BigInteger(payload);
                     listener.report(lMessage);
-                } catch (IOException ignored) {
-                    // ignore an error receiving packet
+                } catch (IOException e) {
+                    // stop once the socket is closed, otherwise count the
+                    // error and keep receiving
+                    if(socket.isClosed())
+                        return;
+                    stats.receiveError();
+                    System.err.println(e);
                 } catch (NumberFormatException nfe){
+                    stats.numberFormatFailure();
                     System.err.println("ERROR");
                 }
             }
         }
+
+        /**
+         * Ack a reliable datagram. If the ack can't be sent it is dropped,
+         * and the sender's retransmit brings another
+         *
+         * @param dp the datagram
+         * @param buffer the buffer holding it
+         * @param ack where to build the ack
+         * @return true if what it carries is new and should be handled
+         */
+        private boolean unwrap(DatagramPacket dp, byte[] buffer, byte[] ack){
+            if(acks == null){
+                // an envelope is a type this receiver wasn't set up for
+                ReporterStats.get().lengthRejected();
+                return false;
+            }
+            boolean fresh = acks.receive(dp.getSocketAddress(), buffer, 0,
+                    dp.getLength(), ack);
+            if(ack[0] == Reliable.ACK){
+                try{
+                    socket.send(new DatagramPacket(ack, ack.length,
+                            dp.getSocketAddress()));
+                } catch (IOException e){
+                    // a spoofed source can be one nothing can be sent to
+                    ReporterStats.get().receiveError();
+                    System.err.println(e);
+                }
+            }
+            return fresh;
+        }
+
+        /**
+         * Unpack a framed datagram and report each of its ciphertexts
+         *
+         * @param source where the datagram came from
+         * @param buffer the buffer holding it
+         * @param off where the datagram starts
+         * @param len the length of the datagram
+         * @param offs where each ciphertext starts
+         * @param lens the length of each ciphertext
+         * @param sources the source of each ciphertext
+         */
+        private void unframe(SocketAddress source, byte[] buffer, int off,
+                             int len, int[] offs, int[] lens,
+                             SocketAddress[] sources){
+            int count = framed ? Framed.unpack(buffer, off, len, keyId, offs,
+                    lens, 0) : -1;
+            if(count < 0){
+                ReporterStats.get().frameRejected();
+                return;
+            }
+            if(bytesListener != null){
+                Arrays.fill(sources, 0, count, source);
+                bytesListener.reportAll(sources, buffer, offs, lens, count);
+                return;
+            }
+            for(int i = 0; i < count; i++)
+                listener.report(new BigInteger(buffer, offs[i], lens[i]));
+        }
     }
 }
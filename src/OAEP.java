@@ -1,12 +1,47 @@
 import edu.rit.util.Packing;
 import java.math.BigInteger;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.Charset;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.security.DigestException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
 
 /**
  * Class OAEP implements the Optimal Asymmetric Encryption Padding operations
  * for encoding strings for RSA encryption. OAEP is specified in Public Key
  * Cryptography Standard Number One (PKCS#1) version 2.2. A string is encoded as
  * a 2048-bit big integer.
+ * <P>
+ * The byte array and byte buffer overloads of <TT>encode()</TT> and
+ * <TT>decode()</TT> work on a 256-byte big-endian block supplied by the caller
+ * and allocate nothing apart from the decoded string. An OAEP object reuses
+ * its scratch storage from call to call, so it must not be shared between
+ * threads.
+ * <P>
+ * SHA-256 is computed by a pluggable {@linkplain Hash Hash} chosen at
+ * construction: either the pure Java implementation in this class, or the
+ * JDK's <TT>MessageDigest</TT>, which HotSpot compiles to the SHA-NI/ARMv8
+ * SHA instructions where the CPU has them. The no-argument constructor uses
+ * the JDK backend if it agrees with the pure Java one on a set of test
+ * vectors, checked once, the first time the no-argument constructor is
+ * called.
+ * <P>
+ * The batch overloads of <TT>encode()</TT> and <TT>decode()</TT> work on
+ * several blocks at once. Every MGF1 hash of the whole batch goes through one
+ * call on a {@linkplain MultiHash MultiHash}, which hashes several messages
+ * side by side, one per lane. <TT>VectorSha256</TT> in the <TT>vector</TT>
+ * module does that with the incubating Vector API of JDK 16 and later. It is
+ * used when it is on the class path, the JVM was started with
+ * <TT>--add-modules jdk.incubator.vector</TT>, and it agrees with the pure
+ * Java SHA-256. Otherwise the batch is hashed one message at a time with this
+ * object's {@linkplain Hash Hash}. The output is identical to encoding or
+ * decoding each block on its own.
  *
  * @author  Alan Kaminsky
  * @version 07-Apr-2018
@@ -14,27 +49,229 @@ import java.nio.charset.Charset;
 public class OAEP
 {
 
+// Exported helper classes.
+
+    /**
+     * Interface OAEP.Hash specifies a SHA-256 implementation used by OAEP for
+     * the label hash and Mask Generating Function One. An implementation may
+     * keep scratch storage and need not be thread safe.
+     */
+    public static interface Hash
+    {
+        /**
+         * Compute the SHA-256 digest of the given message.
+         *
+         * @param  msgbuf  Message buffer (input).
+         * @param  msgoff  Index of first message byte to hash.
+         * @param  msglen  Number of message bytes to hash.
+         * @param  digbuf  Digest buffer (output).
+         * @param  digoff  Index of first digest byte to store. Indexes digoff
+         *                 through digoff+31 inclusive will be stored.
+         */
+        public void sha256
+        (byte[] msgbuf,
+         int msgoff,
+         int msglen,
+         byte[] digbuf,
+         int digoff);
+    }
+
+    /**
+     * Interface OAEP.MultiHash specifies a SHA-256 implementation that hashes
+     * a batch of equal length messages together, several at a time. An
+     * implementation may keep scratch storage and need not be thread safe.
+     */
+    public static interface MultiHash
+    {
+        /**
+         * Returns the number of messages hashed side by side.
+         *
+         * @return  Number of lanes.
+         */
+        public int lanes();
+
+        /**
+         * Compute the SHA-256 digests of the given messages.
+         *
+         * @param  msgbuf  Message buffers (input), one per message.
+         * @param  msgoff  Index of each first message byte to hash.
+         * @param  msglen  Number of bytes to hash in every message.
+         * @param  count   Number of messages.
+         * @param  digbuf  Digest buffers (output), one per message.
+         * @param  digoff  Index of each first digest byte to store. Indexes
+         *                 digoff[i] through digoff[i]+31 inclusive will be
+         *                 stored.
+         */
+        public void sha256
+        (byte[][] msgbuf,
+         int[] msgoff,
+         int msglen,
+         int count,
+         byte[][] digbuf,
+         int[] digoff);
+    }
+
+    /**
+     * Enumeral OAEP.Backend selects the SHA-256 implementation of an OAEP
+     * object.
+     */
+    public static enum Backend
+    {
+        /**
+         * Pure Java SHA-256 compression loop.
+         */
+        PURE_JAVA,
+
+        /**
+         * The JDK's <TT>MessageDigest.getInstance("SHA-256")</TT>, which
+         * HotSpot replaces with CPU SHA instructions where available.
+         */
+        JDK;
+    }
+
+// Exported constants.
+
+    /**
+     * Largest message that can be encoded, in bytes.
+     */
+    public static final int MAX_MESSAGE = 190;
+
 // Hidden data members.
 
     // UTF-8 character set.
     private static final Charset utf8 = Charset.forName ("UTF-8");
 
+    // Size of an encoded block in bytes.
+    private static final int BLOCK = 256;
+
     // OAEP label hash.
     private byte[] lHash;
 
+    // Encoded block scratch storage for encode() and decode().
+    private byte[] enc = new byte [BLOCK];
+
+    // UTF-8 encoder and message scratch storage for encode(). One extra byte
+    // lets an overlong string be detected without encoding all of it.
+    private CharsetEncoder utf8enc = utf8.newEncoder()
+            .onMalformedInput (CodingErrorAction.REPLACE)
+            .onUnmappableCharacter (CodingErrorAction.REPLACE);
+    private ByteBuffer mbuf = ByteBuffer.allocate (MAX_MESSAGE + 1);
+
+    // SHA-256 implementation.
+    private Hash hash;
+
+    // Backend used by the no-argument constructor, decided on first use.
+    private static Backend defaultBackend;
+
+    // Name of the Vector API multi-buffer SHA-256 class.
+    private static final String VECTOR_HASH = "VectorSha256";
+
+    // Whether batch operations use the Vector API class, decided on first use.
+    private static Boolean vectorHash;
+
+    // Multi-buffer SHA-256 implementation for batch operations, created on
+    // first use.
+    private MultiHash multiHash;
+
+    // Number of blocks batch operations work on at a time, few enough that
+    // the group's blocks and hash inputs stay in the CPU cache.
+    private static final int GROUP = 32;
+
+    // Most MGF1 counter values for one block.
+    private static final int MAX_CTR = (BLOCK - 33 + 31) >> 5;
+
+    // Batch scratch storage, allocated on first use: encoded blocks for
+    // decode(), each block's offset, which blocks have failed, the blocks
+    // maskBatch() works on, and its (seed || counter) inputs and digests.
+    // Offsets into the blocks, inputs and digests are all 0.
+    private byte[][] batchEnc;
+    private int[] batchOff;
+    private boolean[] batchFailed;
+    private int[] live;
+    private byte[][] mgfIn;
+    private byte[][] mgfDig;
+    private int[] mgfOff;
+
 // Exported constructors.
 
     /**
-     * Construct a new OAEP string encoder.
+     * Construct a new OAEP string encoder using the default SHA-256 backend.
      */
     public OAEP()
     {
+        this (defaultBackend());
+    }
+
+    /**
+     * Construct a new OAEP string encoder using the given SHA-256 backend.
+     *
+     * @param  backend  SHA-256 backend.
+     *
+     * @exception  NullPointerException
+     *     (unchecked exception) Thrown if <TT>backend</TT> is null.
+     */
+    public OAEP
+    (Backend backend)
+    {
+        switch (backend)
+        {
+            case JDK:
+                hash = new JdkHash();
+                break;
+            case PURE_JAVA:
+                hash = this::pureSha256;
+                break;
+        }
         lHash = new byte [32];
         sha256 (new byte [0], 0, 0, lHash, 0);
     }
 
 // Exported operations.
 
+    /**
+     * Determine whether the pure Java and JDK SHA-256 backends agree. Digests
+     * of messages of every length spanning up to four SHA-256 blocks, and OAEP
+     * encodings of messages of every length up to the maximum, are compared.
+     *
+     * @return  True if both backends produce identical output, false
+     *          otherwise, including if the JDK has no SHA-256.
+     */
+    public static boolean backendsAgree()
+    {
+        try
+        {
+            OAEP pure = new OAEP (Backend.PURE_JAVA);
+            OAEP jdk = new OAEP (Backend.JDK);
+            byte[] msg = new byte [MAX_MESSAGE + 64];
+            byte[] seed = new byte [32];
+            for (int i = 0; i < msg.length; ++ i)
+                msg[i] = (byte) (i*31 + 7);
+            for (int i = 0; i < seed.length; ++ i)
+                seed[i] = (byte) (i*17 + 3);
+            byte[] d1 = new byte [32];
+            byte[] d2 = new byte [32];
+            for (int len = 0; len <= msg.length; ++ len)
+            {
+                pure.sha256 (msg, 0, len, d1, 0);
+                jdk.sha256 (msg, 0, len, d2, 0);
+                if (! Arrays.equals (d1, d2)) return false;
+            }
+            StringBuilder str = new StringBuilder();
+            while (str.length() <= MAX_MESSAGE)
+            {
+                String s = str.toString();
+                if (! pure.encode (s, seed) .equals (jdk.encode (s, seed)))
+                    return false;
+                str.append ((char) ('a' + str.length() % 26));
+            }
+            return true;
+        }
+        catch (IllegalStateException exc)
+        {
+            return false;
+        }
+    }
+
     /**
      * Encode the given string.
      *
@@ -51,34 +288,124 @@ public class OAEP
     (String str,
      byte[] seed)
     {
-        // Convert string to byte array.
-        byte[] m = str.getBytes (utf8);
+        encode (str, seed, enc, 0);
+        return new BigInteger (enc);
+    }
+
+    /**
+     * Encode the given string into the given byte buffer. The 256-byte
+     * big-endian encoded block is stored at the buffer's current position,
+     * and the position is advanced past it.
+     *
+     * @param  str   String.
+     * @param  seed  Random seed, a 32-byte array.
+     * @param  buf   Byte buffer (output).
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if <TT>str</TT> is too long to be
+     *     encoded. Thrown if <TT>seed</TT> is not a 32-byte array.
+     * @exception  BufferOverflowException
+     *     (unchecked exception) Thrown if <TT>buf</TT> has fewer than 256 bytes
+     *     remaining.
+     */
+    public void encode
+    (String str,
+     byte[] seed,
+     ByteBuffer buf)
+    {
+        if (buf.hasArray())
+        {
+            if (buf.remaining() < BLOCK)
+                throw new BufferOverflowException();
+            encode (str, seed, buf.array(), buf.arrayOffset() + buf.position());
+            buf.position (buf.position() + BLOCK);
+        }
+        else
+        {
+            encode (str, seed, enc, 0);
+            buf.put (enc, 0, BLOCK);
+        }
+    }
 
+    /**
+     * Encode the given string into the given byte array. The 256-byte
+     * big-endian encoded block is stored at indexes <TT>off</TT> through
+     * <TT>off</TT>+255 inclusive.
+     *
+     * @param  str   String.
+     * @param  seed  Random seed, a 32-byte array.
+     * @param  buf   Byte array (output).
+     * @param  off   Index of first encoded byte to store.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if <TT>str</TT> is too long to be
+     *     encoded. Thrown if <TT>seed</TT> is not a 32-byte array. Thrown if
+     *     <TT>buf</TT> does not have room for 256 bytes at <TT>off</TT>.
+     */
+    public void encode
+    (String str,
+     byte[] seed,
+     byte[] buf,
+     int off)
+    {
         // Verify preconditions.
-        if (m.length > 190)
-            throw new IllegalArgumentException
-                    ("OAEP.encode(): String is too long");
         if (seed.length != 32)
             throw new IllegalArgumentException
                     ("OAEP.encode(): seed must be 32 bytes");
+        if (off < 0 || off + BLOCK > buf.length)
+            throw new IllegalArgumentException
+                    ("OAEP.encode(): buf too small");
 
-        // Set up OAEP encoded output byte array.
-        byte[] enc = new byte [256];
-
-        // Store and pad the message.
-        System.arraycopy (lHash, 0, enc, 33, 32);
-        enc[255-m.length] = (byte) 0x01;
-        System.arraycopy (m, 0, enc, 256 - m.length, m.length);
-
-        // Mask the message using the seed.
-        mask (enc, 33, 223, seed, 0, 32);
+        // Convert string to bytes in the message scratch buffer.
+        mbuf.clear();
+        utf8enc.reset();
+        CoderResult cr = utf8enc.encode (CharBuffer.wrap (str), mbuf, true);
+        if (cr.isOverflow() || mbuf.position() > MAX_MESSAGE ||
+                utf8enc.flush (mbuf).isOverflow())
+            throw new IllegalArgumentException
+                    ("OAEP.encode(): String is too long");
+        encodeBlock (mbuf.array(), 0, mbuf.position(), seed, buf, off);
+    }
 
-        // Store and mask the seed using the masked message.
-        System.arraycopy (seed, 0, enc, 1, 32);
-        mask (enc, 1, 32, enc, 33, 223);
+    /**
+     * Encode the given bytes into the given byte array. The 256-byte
+     * big-endian encoded block is stored at indexes <TT>off</TT> through
+     * <TT>off</TT>+255 inclusive.
+     *
+     * @param  msg   Message byte array (input).
+     * @param  moff  Index of first message byte.
+     * @param  mlen  Number of message bytes, at most 190.
+     * @param  seed  Random seed, a 32-byte array.
+     * @param  buf   Byte array (output).
+     * @param  off   Index of first encoded byte to store.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if the message is too long to be
+     *     encoded. Thrown if <TT>seed</TT> is not a 32-byte array. Thrown if
+     *     <TT>buf</TT> does not have room for 256 bytes at <TT>off</TT>.
+     */
+    public void encode
+    (byte[] msg,
+     int moff,
+     int mlen,
+     byte[] seed,
+     byte[] buf,
+     int off)
+    {
+        // Verify preconditions.
+        if (seed.length != 32)
+            throw new IllegalArgumentException
+                    ("OAEP.encode(): seed must be 32 bytes");
+        if (off < 0 || off + BLOCK > buf.length)
+            throw new IllegalArgumentException
+                    ("OAEP.encode(): buf too small");
+        if (moff < 0 || mlen < 0 || moff + mlen > msg.length)
+            throw new IllegalArgumentException();
+        if (mlen > MAX_MESSAGE)
+            throw new IllegalArgumentException
+                    ("OAEP.encode(): Message is too long");
 
-        // Return encoded string.
-        return new BigInteger (enc);
+        encodeBlock (msg, moff, mlen, seed, buf, off);
     }
 
     /**
@@ -98,14 +425,560 @@ public class OAEP
     {
         // Convert big integer to byte array.
         byte[] bi = bigint.toByteArray();
-        if (bi.length > 256)
+        if (bi.length > 257 || (bi.length == 257 && bi[0] != 0x00))
+            throw new IllegalArgumentException
+                    ("OAEP.decode(): bigint is too big");
+        return decode (bi, 0, bi.length);
+    }
+
+    /**
+     * Decode the 256-byte big-endian encoded block at the given byte buffer's
+     * current position, and advance the position past it. The buffer's
+     * contents are not altered.
+     *
+     * @param  buf  Byte buffer (input).
+     *
+     * @return  Decoded string.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if any error occurs during the decoding
+     *     process.
+     * @exception  java.nio.BufferUnderflowException
+     *     (unchecked exception) Thrown if <TT>buf</TT> has fewer than 256 bytes
+     *     remaining.
+     */
+    public String decode
+    (ByteBuffer buf)
+    {
+        buf.get (enc, 0, BLOCK);
+        return decodeBlock();
+    }
+
+    /**
+     * Decode the big-endian encoded value stored in the given byte array at
+     * indexes <TT>off</TT> through <TT>off+len-1</TT> inclusive. The value is
+     * treated as unsigned and padded on the left with 0 bytes up to 256 bytes;
+     * a 257-byte value is accepted if its first byte is 0, as produced by
+     * <TT>BigInteger.toByteArray()</TT>. The array's contents are not altered.
+     *
+     * @param  buf  Byte array (input).
+     * @param  off  Index of first encoded byte.
+     * @param  len  Number of encoded bytes.
+     *
+     * @return  Decoded string.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if any error occurs during the decoding
+     *     process.
+     */
+    public String decode
+    (byte[] buf,
+     int off,
+     int len)
+    {
+        loadBlock (buf, off, len);
+        return decodeBlock();
+    }
+
+    /**
+     * Decode the big-endian encoded value stored in the given byte array at
+     * indexes <TT>off</TT> through <TT>off+len-1</TT> inclusive into bytes,
+     * for messages encoded from bytes rather than a string. The value is
+     * treated as by <TT>decode(byte[],int,int)</TT>.
+     *
+     * @param  buf     Byte array (input).
+     * @param  off     Index of first encoded byte.
+     * @param  len     Number of encoded bytes.
+     * @param  msg     Message byte array (output), with room for 190 bytes.
+     * @param  msgoff  Index at which to store the first message byte.
+     *
+     * @return  Number of message bytes stored.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if any error occurs during the decoding
+     *     process.
+     * @exception  IndexOutOfBoundsException
+     *     (unchecked exception) Thrown if <TT>msg</TT> does not have room for
+     *     the message at <TT>msgoff</TT>.
+     */
+    public int decode
+    (byte[] buf,
+     int off,
+     int len,
+     byte[] msg,
+     int msgoff)
+    {
+        loadBlock (buf, off, len);
+        int j = unpadBlock();
+        System.arraycopy (enc, j, msg, msgoff, BLOCK - j);
+        return BLOCK - j;
+    }
+
+    /**
+     * Encode a batch of byte messages, hashing the whole batch together. Each
+     * message is encoded exactly as by
+     * <TT>encode(byte[],int,int,byte[],byte[],int)</TT>.
+     *
+     * @param  msg    Message byte arrays (input).
+     * @param  moff   Index of each first message byte.
+     * @param  mlen   Number of bytes in each message, at most 190.
+     * @param  count  Number of messages.
+     * @param  seed   Random seeds, each a 32-byte array.
+     * @param  buf    Byte arrays (output).
+     * @param  off    Index of each first encoded byte to store.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if any message is too long to be
+     *     encoded, any seed is not a 32-byte array, or any <TT>buf</TT> does
+     *     not have room for 256 bytes at its <TT>off</TT>. Nothing is stored
+     *     if so.
+     */
+    public void encode
+    (byte[][] msg,
+     int[] moff,
+     int[] mlen,
+     int count,
+     byte[][] seed,
+     byte[][] buf,
+     int[] off)
+    {
+        // Verify preconditions.
+        for (int i = 0; i < count; ++ i)
+        {
+            if (seed[i].length != 32)
+                throw new IllegalArgumentException
+                        ("OAEP.encode(): seed must be 32 bytes");
+            if (off[i] < 0 || off[i] + BLOCK > buf[i].length)
+                throw new IllegalArgumentException
+                        ("OAEP.encode(): buf too small");
+            if (moff[i] < 0 || mlen[i] < 0 || moff[i] + mlen[i] > msg[i].length)
+                throw new IllegalArgumentException();
+            if (mlen[i] > MAX_MESSAGE)
+                throw new IllegalArgumentException
+                        ("OAEP.encode(): Message is too long");
+        }
+
+        ensureBatch();
+        for (int first = 0; first < count; first += GROUP)
+        {
+            int n = Math.min (GROUP, count - first);
+
+            // Store and pad each message, and store its seed.
+            for (int i = first; i < first + n; ++ i)
+            {
+                byte[] b = buf[i];
+                int o = off[i];
+                Arrays.fill (b, o, o + BLOCK, (byte) 0);
+                System.arraycopy (lHash, 0, b, o + 33, 32);
+                b[o+255-mlen[i]] = (byte) 0x01;
+                System.arraycopy (msg[i], moff[i], b, o + 256 - mlen[i],
+                        mlen[i]);
+                System.arraycopy (seed[i], 0, b, o + 1, 32);
+            }
+
+            // Mask the messages using the seeds, then the seeds using the
+            // masked messages.
+            Arrays.fill (batchFailed, false);
+            maskBatch (buf, off, first, n, 33, 223, 1, 32);
+            maskBatch (buf, off, first, n, 1, 32, 33, 223);
+        }
+    }
+
+    /**
+     * Decode a batch of big-endian encoded values into bytes, hashing the
+     * whole batch together. Each value is decoded exactly as by
+     * <TT>decode(byte[],int,int,byte[],int)</TT>, and one that fails does not
+     * stop the others. The input arrays' contents are not altered.
+     *
+     * @param  buf     Byte arrays (input).
+     * @param  off     Index of each first encoded byte.
+     * @param  len     Number of encoded bytes in each value.
+     * @param  count   Number of values.
+     * @param  msg     Message byte arrays (output), each with room for 190
+     *                 bytes.
+     * @param  msgoff  Index at which to store each first message byte.
+     * @param  msglen  Number of message bytes stored for each value (output),
+     *                 or -1 if it did not decode.
+     * @param  err     The exception each value's decoding threw (output), or
+     *                 null if it decoded.
+     *
+     * @return  Number of values that decoded.
+     *
+     * @exception  IndexOutOfBoundsException
+     *     (unchecked exception) Thrown if a <TT>msg</TT> does not have room
+     *     for its message at its <TT>msgoff</TT>.
+     */
+    public int decode
+    (byte[][] buf,
+     int[] off,
+     int[] len,
+     int count,
+     byte[][] msg,
+     int[] msgoff,
+     int[] msglen,
+     IllegalArgumentException[] err)
+    {
+        ensureBatch();
+        int decoded = 0;
+        for (int first = 0; first < count; first += GROUP)
+        {
+            int n = Math.min (GROUP, count - first);
+
+            // Copy each value into its own block and check its first byte.
+            for (int k = 0; k < n; ++ k)
+            {
+                int i = first + k;
+                err[i] = null;
+                msglen[i] = -1;
+                batchFailed[k] = false;
+                try
+                {
+                    loadBlock (buf[i], off[i], len[i], batchEnc[k]);
+                    if (batchEnc[k][0] != 0x00)
+                        throw new IllegalArgumentException
+                                ("OAEP.decode(): First byte incorrect");
+                }
+                catch (IllegalArgumentException exc)
+                {
+                    err[i] = exc;
+                    batchFailed[k] = true;
+                }
+            }
+
+            // Unmask the seeds using the masked messages, then the messages
+            // using the seeds.
+            maskBatch (batchEnc, batchOff, 0, n, 1, 32, 33, 223);
+            maskBatch (batchEnc, batchOff, 0, n, 33, 223, 1, 32);
+
+            // Check the padding and store each message.
+            for (int k = 0; k < n; ++ k)
+            {
+                if (batchFailed[k]) continue;
+                int i = first + k;
+                try
+                {
+                    int j = checkBlock (batchEnc[k]);
+                    System.arraycopy (batchEnc[k], j, msg[i], msgoff[i],
+                            BLOCK - j);
+                    msglen[i] = BLOCK - j;
+                    ++ decoded;
+                }
+                catch (IllegalArgumentException exc)
+                {
+                    err[i] = exc;
+                }
+            }
+        }
+        return decoded;
+    }
+
+    /**
+     * Create the Vector API multi-buffer SHA-256 that batch operations use,
+     * if it can be loaded and agrees with the pure Java SHA-256. That is
+     * decided once.
+     *
+     * @return  A new <TT>VectorSha256</TT>, or null if batch operations hash
+     *          one message at a time.
+     */
+    public static MultiHash newVectorHash()
+    {
+        return useVectorHash() ? loadVectorHash() : null;
+    }
+
+    /**
+     * Determine whether the given multi-buffer SHA-256 implementation agrees
+     * with the pure Java one. Batches of distinct messages of every length
+     * spanning up to four SHA-256 blocks are hashed, with enough messages to
+     * fill two rounds of lanes and part of a third.
+     *
+     * @param  multi  Multi-buffer SHA-256 implementation.
+     *
+     * @return  True if every digest is identical, false otherwise.
+     */
+    public static boolean multiHashAgrees
+    (MultiHash multi)
+    {
+        OAEP pure = new OAEP (Backend.PURE_JAVA);
+        int count = 2*multi.lanes() + 3;
+        byte[][] msg = new byte [count] [MAX_MESSAGE + 64 + count];
+        byte[][] dig = new byte [count] [32 + 1];
+        int[] msgoff = new int [count];
+        int[] digoff = new int [count];
+        for (int i = 0; i < count; ++ i)
+        {
+            for (int k = 0; k < msg[i].length; ++ k)
+                msg[i][k] = (byte) (k*31 + i*7 + 3);
+            msgoff[i] = i;
+            digoff[i] = i & 1;
+        }
+        byte[] expect = new byte [32];
+        for (int len = 0; len <= MAX_MESSAGE + 64; ++ len)
+        {
+            multi.sha256 (msg, msgoff, len, count, dig, digoff);
+            for (int i = 0; i < count; ++ i)
+            {
+                pure.sha256 (msg[i], msgoff[i], len, expect, 0);
+                if (! Arrays.equals (expect, 0, 32, dig[i], digoff[i],
+                        digoff[i] + 32))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+// Hidden operations.
+
+    /**
+     * Returns whether batch operations use the Vector API multi-buffer
+     * SHA-256, which is so if it loads and <TT>multiHashAgrees()</TT>.
+     *
+     * @return  True to use <TT>VectorSha256</TT>.
+     */
+    private static synchronized boolean useVectorHash()
+    {
+        if (vectorHash == null)
+        {
+            MultiHash vector = loadVectorHash();
+            vectorHash = vector != null && multiHashAgrees (vector);
+        }
+        return vectorHash;
+    }
+
+    /**
+     * Load and construct the Vector API multi-buffer SHA-256 by name, so this
+     * class still compiles and runs on a JDK without the Vector API.
+     *
+     * @return  A new <TT>VectorSha256</TT>, or null if it is not on the class
+     *          path or the <TT>jdk.incubator.vector</TT> module is missing.
+     */
+    private static MultiHash loadVectorHash()
+    {
+        try
+        {
+            return (MultiHash) Class.forName (VECTOR_HASH)
+                    .getDeclaredConstructor() .newInstance();
+        }
+        catch (ReflectiveOperationException | LinkageError |
+                ClassCastException exc)
+        {
+            return null;
+        }
+    }
+
+    /**
+     * Returns this object's multi-buffer SHA-256, creating it on first use.
+     *
+     * @return  Multi-buffer SHA-256 implementation.
+     */
+    private MultiHash multiHash()
+    {
+        if (multiHash == null)
+        {
+            multiHash = newVectorHash();
+            if (multiHash == null)
+                multiHash = new HashLoop (hash);
+        }
+        return multiHash;
+    }
+
+    /**
+     * Allocate the batch scratch storage if this is the first batch operation.
+     */
+    private void ensureBatch()
+    {
+        if (batchEnc == null)
+        {
+            batchEnc = new byte [GROUP] [BLOCK];
+            batchOff = new int [GROUP];
+            batchFailed = new boolean [GROUP];
+            live = new int [GROUP];
+            mgfIn = new byte [GROUP*MAX_CTR] [seedctrbuf.length];
+            mgfDig = new byte [GROUP*MAX_CTR] [32];
+            mgfOff = new int [GROUP*MAX_CTR];
+        }
+    }
+
+    /**
+     * Mask (or unmask) part of each of a group of encoded blocks using Mask
+     * Generating Function One (MGF1) with another part of the same block as
+     * the seed. Every (seed || counter) input of the group is hashed in one
+     * call on the multi-buffer SHA-256. Blocks marked in
+     * <TT>batchFailed</TT> are left alone.
+     *
+     * @param  blk      Block buffers (input/output).
+     * @param  base     Index of each block in its buffer.
+     * @param  first    Index in <TT>blk</TT> and <TT>base</TT> of the first
+     *                  block.
+     * @param  count    Number of blocks, at most <TT>GROUP</TT>.
+     * @param  msgoff   Index in each block of the first byte to mask.
+     * @param  msglen   Number of bytes to mask.
+     * @param  seedoff  Index in each block of the first seed byte.
+     * @param  seedlen  Number of seed bytes.
+     */
+    private void maskBatch
+    (byte[][] blk,
+     int[] base,
+     int first,
+     int count,
+     int msgoff,
+     int msglen,
+     int seedoff,
+     int seedlen)
+    {
+        // List the blocks to mask.
+        int n = 0;
+        for (int k = 0; k < count; ++ k)
+            if (! batchFailed[k])
+                live[n++] = first + k;
+
+        // Set up every (seed || counter) input, one per 32 mask bytes.
+        int per = (msglen + 31) >> 5;
+        for (int k = 0; k < n; ++ k)
+        {
+            int i = live[k];
+            for (int ctr = 0; ctr < per; ++ ctr)
+            {
+                byte[] in = mgfIn[k*per+ctr];
+                System.arraycopy (blk[i], base[i] + seedoff, in, 0, seedlen);
+                Packing.unpackIntBigEndian (ctr, in, seedlen);
+            }
+        }
+
+        // Hash them all, then mask each block.
+        multiHash().sha256 (mgfIn, mgfOff, seedlen + 4, n*per, mgfDig,
+                mgfOff);
+        for (int k = 0; k < n; ++ k)
+        {
+            int i = live[k];
+            byte[] b = blk[i];
+            int o = base[i] + msgoff;
+            for (int j = 0; j < msglen; ++ j)
+                b[o+j] ^= mgfDig[k*per+(j >> 5)][j & 31];
+        }
+    }
+
+    /**
+     * Pad and mask the given message into an encoded block. Preconditions
+     * have been checked.
+     *
+     * @param  msg   Message byte array (input).
+     * @param  moff  Index of first message byte.
+     * @param  mlen  Number of message bytes.
+     * @param  seed  Random seed, a 32-byte array.
+     * @param  buf   Byte array (output).
+     * @param  off   Index of first encoded byte to store.
+     */
+    private void encodeBlock
+    (byte[] msg,
+     int moff,
+     int mlen,
+     byte[] seed,
+     byte[] buf,
+     int off)
+    {
+        // Store and pad the message.
+        Arrays.fill (buf, off, off + BLOCK, (byte) 0);
+        System.arraycopy (lHash, 0, buf, off + 33, 32);
+        buf[off+255-mlen] = (byte) 0x01;
+        System.arraycopy (msg, moff, buf, off + 256 - mlen, mlen);
+
+        // Mask the message using the seed.
+        mask (buf, off + 33, 223, seed, 0, 32);
+
+        // Store and mask the seed using the masked message.
+        System.arraycopy (seed, 0, buf, off + 1, 32);
+        mask (buf, off + 1, 32, buf, off + 33, 223);
+    }
+
+    /**
+     * Copy the big-endian encoded value stored in the given byte array at
+     * indexes <TT>off</TT> through <TT>off+len-1</TT> inclusive into the
+     * <TT>enc</TT> scratch array, padded on the left with 0 bytes.
+     *
+     * @param  buf  Byte array (input).
+     * @param  off  Index of first encoded byte.
+     * @param  len  Number of encoded bytes.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if the value does not fit in a block.
+     */
+    private void loadBlock
+    (byte[] buf,
+     int off,
+     int len)
+    {
+        loadBlock (buf, off, len, enc);
+    }
+
+    /**
+     * Copy the big-endian encoded value stored in the given byte array at
+     * indexes <TT>off</TT> through <TT>off+len-1</TT> inclusive into the given
+     * 256-byte block, padded on the left with 0 bytes.
+     *
+     * @param  buf  Byte array (input).
+     * @param  off  Index of first encoded byte.
+     * @param  len  Number of encoded bytes.
+     * @param  blk  Block (output).
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if the value does not fit in a block.
+     */
+    private static void loadBlock
+    (byte[] buf,
+     int off,
+     int len,
+     byte[] blk)
+    {
+        // Verify preconditions.
+        if (off < 0 || len < 0 || off + len > buf.length)
+            throw new IllegalArgumentException();
+
+        // Strip one leading sign byte.
+        if (len == BLOCK + 1)
+        {
+            if (buf[off] != 0x00)
+                throw new IllegalArgumentException
+                        ("OAEP.decode(): bigint is too big");
+            ++ off;
+            -- len;
+        }
+        else if (len > BLOCK)
             throw new IllegalArgumentException
                     ("OAEP.decode(): bigint is too big");
 
         // Prepend 0 bytes as necessary.
-        byte[] enc = new byte [256];
-        System.arraycopy (bi, 0, enc, 256 - bi.length, bi.length);
+        Arrays.fill (blk, 0, BLOCK - len, (byte) 0);
+        System.arraycopy (buf, off, blk, BLOCK - len, len);
+    }
+
+    /**
+     * Decode the 256-byte encoded block in the <TT>enc</TT> scratch array. The
+     * scratch array is overwritten.
+     *
+     * @return  Decoded string.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if any error occurs during the decoding
+     *     process.
+     */
+    private String decodeBlock()
+    {
+        int j = unpadBlock();
+        return new String (enc, j, 256 - j, utf8);
+    }
 
+    /**
+     * Unmask and check the 256-byte encoded block in the <TT>enc</TT> scratch
+     * array. The scratch array is overwritten.
+     *
+     * @return  Index in <TT>enc</TT> of the first message byte.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if any error occurs during the decoding
+     *     process.
+     */
+    private int unpadBlock()
+    {
         // Check that first byte is 0.
         if (enc[0] != 0x00)
             throw new IllegalArgumentException
@@ -117,26 +990,39 @@ public class OAEP
         // Unmask the message using the seed.
         mask (enc, 33, 223, enc, 1, 32);
 
+        return checkBlock (enc);
+    }
+
+    /**
+     * Check the padding of the given unmasked 256-byte block.
+     *
+     * @param  blk  Block (input).
+     *
+     * @return  Index in <TT>blk</TT> of the first message byte.
+     *
+     * @exception  IllegalArgumentException
+     *     (unchecked exception) Thrown if the padding is incorrect.
+     */
+    private int checkBlock
+    (byte[] blk)
+    {
         // Check that the first 32 bytes of padding equals lHash.
         for (int i = 0; i < 32; ++ i)
-            if (enc[33+i] != lHash[i])
+            if (blk[33+i] != lHash[i])
                 throw new IllegalArgumentException
                         ("OAEP.decode(): lHash incorrect");
 
         // Scan over zero or more padding bytes of 0 until a padding byte of 1.
         int j = 65;
-        while (j < 256 && enc[j] == 0x00) ++ j;
-        if (j == 256 || enc[j] != 0x01)
+        while (j < 256 && blk[j] == 0x00) ++ j;
+        if (j == 256 || blk[j] != 0x01)
             throw new IllegalArgumentException
                     ("OAEP.decode(): Padding incorrect");
 
-        // Skip final padding byte; reconstruct original string.
-        ++ j;
-        return new String (enc, j, 256 - j, utf8);
+        // Skip final padding byte.
+        return j + 1;
     }
 
-// Hidden operations.
-
     /**
      * Mask (or unmask) the given message using Mask Generating Function One
      * (MGF1) with the given seed.
@@ -162,7 +1048,8 @@ public class OAEP
             throw new IllegalArgumentException();
 
         // Set up (seed || counter) SHA-256 input buffer.
-        byte[] seedctrbuf = new byte [seedlen + 4];
+        if (seedctrbuf.length < seedlen + 4)
+            seedctrbuf = new byte [seedlen + 4];
         System.arraycopy (seedbuf, seedoff, seedctrbuf, 0, seedlen);
 
         // Initialize counter for input buffer.
@@ -175,7 +1062,7 @@ public class OAEP
             if ((i & 31) == 0)
             {
                 Packing.unpackIntBigEndian (ctr, seedctrbuf, seedlen);
-                sha256 (seedctrbuf, 0, seedctrbuf.length, maskdig, 0);
+                sha256 (seedctrbuf, 0, seedlen + 4, maskdig, 0);
                 ++ ctr;
             }
             msgbuf[msgoff+i] ^= maskdig[i & 31];
@@ -185,9 +1072,27 @@ public class OAEP
     // Digest byte array for mask() method.
     private byte[] maskdig = new byte [32];
 
+    // (seed || counter) byte array for mask() method, big enough for the
+    // 223-byte masked message used as a seed.
+    private byte[] seedctrbuf = new byte [227];
+
+    /**
+     * Returns the backend used by the no-argument constructor. The JDK backend
+     * is used if <TT>backendsAgree()</TT>, otherwise the pure Java one. The
+     * check is made on the first call and its result kept.
+     *
+     * @return  Default backend.
+     */
+    private static synchronized Backend defaultBackend()
+    {
+        if (defaultBackend == null)
+            defaultBackend = backendsAgree() ? Backend.JDK : Backend.PURE_JAVA;
+        return defaultBackend;
+    }
+
     /**
      * Compute the digest of the given message using the SHA-256 cryptographic
-     * hash function.
+     * hash function, with this OAEP object's backend.
      *
      * @param  msgbuf  Message buffer (input).
      * @param  msgoff  Index of first message byte to hash.
@@ -208,16 +1113,111 @@ public class OAEP
                 digoff < 0 || digoff + 32 > digbuf.length)
             throw new IllegalArgumentException();
 
+        hash.sha256 (msgbuf, msgoff, msglen, digbuf, digoff);
+    }
+
+    /**
+     * Class OAEP.JdkHash computes SHA-256 with the JDK's
+     * <TT>MessageDigest</TT>.
+     */
+    private static class JdkHash
+            implements Hash
+    {
+        private MessageDigest md;
+
+        public JdkHash()
+        {
+            try
+            {
+                md = MessageDigest.getInstance ("SHA-256");
+            }
+            catch (NoSuchAlgorithmException exc)
+            {
+                throw new IllegalStateException
+                        ("OAEP: SHA-256 not available", exc);
+            }
+        }
+
+        public void sha256
+        (byte[] msgbuf,
+         int msgoff,
+         int msglen,
+         byte[] digbuf,
+         int digoff)
+        {
+            try
+            {
+                md.update (msgbuf, msgoff, msglen);
+                md.digest (digbuf, digoff, 32);
+            }
+            catch (DigestException exc)
+            {
+                throw new IllegalArgumentException (exc);
+            }
+        }
+    }
+
+    /**
+     * Class HashLoop hashes a batch one message at a time with a single
+     * message SHA-256 implementation, for when the Vector API is not
+     * available.
+     */
+    private static class HashLoop
+            implements MultiHash
+    {
+        private Hash hash;
+
+        public HashLoop
+        (Hash hash)
+        {
+            this.hash = hash;
+        }
+
+        public int lanes()
+        {
+            return 1;
+        }
+
+        public void sha256
+        (byte[][] msgbuf,
+         int[] msgoff,
+         int msglen,
+         int count,
+         byte[][] digbuf,
+         int[] digoff)
+        {
+            for (int i = 0; i < count; ++ i)
+                hash.sha256 (msgbuf[i], msgoff[i], msglen, digbuf[i],
+                        digoff[i]);
+        }
+    }
+
+    /**
+     * Compute the digest of the given message using the pure Java SHA-256
+     * implementation. Arguments are as for <TT>sha256()</TT> and have already
+     * been checked.
+     */
+    private void pureSha256
+    (byte[] msgbuf,
+     int msgoff,
+     int msglen,
+     byte[] digbuf,
+     int digoff)
+    {
         // Determine message length in bits.
         long bitlen = 8L*msglen;
 
-        // Set up padded message, consisting of message, one 0x80 padding byte,
-        // zero or more 0x00 padding bytes, and 8-byte big-endian message length
-        // (in bits), occuping a multiple of 64 bytes.
-        int padlen = ((msglen + 9 + 63) >> 6) << 6;
-        byte[] padbuf = new byte [padlen];
-        System.arraycopy (msgbuf, msgoff, padbuf, 0, msglen);
-        padbuf[msglen] = (byte) 0x80;
+        // Set up the padded tail of the message, consisting of the bytes
+        // after the last full 64-byte block, one 0x80 padding byte, zero or
+        // more 0x00 padding bytes, and 8-byte big-endian message length (in
+        // bits), occuping one or two 64-byte blocks. Full blocks are compressed
+        // straight from the message buffer.
+        int fulllen = msglen & ~63;
+        int taillen = msglen - fulllen;
+        int padlen = ((taillen + 9 + 63) >> 6) << 6;
+        Arrays.fill (padbuf, 0, padlen, (byte) 0);
+        System.arraycopy (msgbuf, msgoff + fulllen, padbuf, 0, taillen);
+        padbuf[taillen] = (byte) 0x80;
         Packing.unpackLongBigEndian (bitlen, padbuf, padlen - 8);
 
         // Initialize chaining value.
@@ -231,10 +1231,13 @@ public class OAEP
         H[7] = 0x5be0cd19;
 
         // Compress each 64-byte message block.
-        for (int i = 0; i < padlen; i += 64)
+        for (int i = 0; i < fulllen + padlen; i += 64)
         {
             // Prepare message schedule W.
-            Packing.packIntBigEndian (padbuf, i, W, 0, 16);
+            if (i < fulllen)
+                Packing.packIntBigEndian (msgbuf, msgoff + i, W, 0, 16);
+            else
+                Packing.packIntBigEndian (padbuf, i - fulllen, W, 0, 16);
             for (int t = 16; t <= 63; ++ t)
                 W[t] = sigma_1(W[t-2]) + W[t-7] + sigma_0(W[t-15]) + W[t-16];
 
@@ -279,6 +1282,9 @@ public class OAEP
         Packing.unpackIntBigEndian (H, 0, digbuf, digoff, 8);
     }
 
+    // SHA-256 padded tail of message, at most two blocks.
+    private byte[] padbuf = new byte [128];
+
     // SHA-256 chaining value H.
     private int[] H = new int [8];
 
@@ -319,8 +1325,15 @@ public class OAEP
                 (x >>> 10);
     }
 
-    // SHA-256 constants.
-    private static int[] K = new int[]
+    // SHA-256 initial chaining value, shared with VectorSha256.
+    static final int[] IV = new int[]
+            {
+                    0x6a09e667, 0xbb67ae85, 0x3c6ef372, 0xa54ff53a,
+                    0x510e527f, 0x9b05688c, 0x1f83d9ab, 0x5be0cd19,
+            };
+
+    // SHA-256 constants, shared with VectorSha256.
+    static final int[] K = new int[]
             {
                     0x428a2f98, 0x71374491, 0xb5c0fbcf, 0xe9b5dba5,
                     0x3956c25b, 0x59f111f1, 0x923f82a4, 0xab1c5ed5,
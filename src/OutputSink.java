@@ -0,0 +1,241 @@
+/*
+ * @filename OutputSink.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Writes the Reporter's decrypted messages on a thread of its own, in
+ * batches, so slow output doesn't hold up decryption
+ */
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * An OutputSink takes messages from the decrypt workers on a lock-free queue
+ * and writes them, one per line in UTF-8, from a writer thread. The output is
+ * buffered and flushed once about {@link #getFlushBytes()} bytes have been
+ * written since the last flush, or once the oldest unflushed message has
+ * waited the flush interval, so a pipe or terminal sees a few large writes
+ * instead of one per message. Only when the queue holds its capacity of
+ * messages does a worker wait for the writer, which bounds the memory a
+ * stalled consumer can take. Messages are written in the order they were
+ * added. An OutputSink is thread safe
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class OutputSink implements OutputSinkMBean {
+
+    /** The default number of messages waiting to be written */
+    public static final int CAPACITY = 1 << 16;
+
+    /** The default flush interval in milliseconds */
+    public static final int FLUSH_MILLIS = 100;
+
+    /** The default number of bytes written between flushes */
+    public static final int FLUSH_BYTES = 1 << 16;
+
+    /** How long a worker waits before looking for room again, in
+     * nanoseconds */
+    private static final long FULL_WAIT = 100_000L;
+
+    /** The messages waiting to be written */
+    private final ConcurrentLinkedQueue<String> queue =
+            new ConcurrentLinkedQueue<>();
+
+    /** The number of messages in the queue */
+    private final AtomicInteger pending = new AtomicInteger();
+
+    /** The most messages in the queue */
+    private final int capacity;
+
+    /** The longest a message waits to be flushed, in nanoseconds */
+    private final long flushNanos;
+
+    /** The bytes written between flushes, counted as characters, which is
+     * exact for ASCII */
+    private final int flushBytes;
+
+    /** Where the messages are written */
+    private final Writer out;
+
+    /** The thread writing them */
+    private final Thread writer;
+
+    /** Whether the writer is parked with an empty queue */
+    private volatile boolean idle;
+
+    /** Whether the sink is closed */
+    private volatile boolean closed;
+
+    /** Messages written */
+    private final LongAdder written = new LongAdder();
+
+    /** Flushes */
+    private final LongAdder flushes = new LongAdder();
+
+    /** Times a worker waited for room */
+    private final LongAdder blocked = new LongAdder();
+
+    /**
+     * Create a new OutputSink and start its writer
+     *
+     * @param out where the messages go
+     * @param capacity the most messages waiting to be written
+     * @param flushMillis the longest a message waits to be flushed, 0 to
+     *                    flush whenever the queue runs dry
+     * @param flushBytes the bytes written between flushes
+     * @throws IllegalArgumentException if a size is below 1 or the interval
+     *                                  is negative
+     */
+    public OutputSink(OutputStream out, int capacity, int flushMillis,
+                      int flushBytes){
+        if(capacity < 1 || flushBytes < 1 || flushMillis < 0)
+            throw new IllegalArgumentException("bad output sink size");
+        this.capacity = capacity;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.flushBytes = flushBytes;
+        // room for a whole flush, so the buffer never writes on its own
+        this.out = new BufferedWriter(new OutputStreamWriter(out,
+                StandardCharsets.UTF_8), flushBytes + 1);
+        this.writer = new Thread(this::write, "OutputSink");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * Queue a message to be written, waiting only if the queue is full. A
+     * message added once the sink is closed, or its output has failed, is
+     * dropped
+     *
+     * @param message the message
+     */
+    public void add(String message){
+        if(closed)
+            return;
+        if(pending.incrementAndGet() > capacity){
+            blocked.increment();
+            while(pending.get() > capacity && !closed)
+                LockSupport.parkNanos(FULL_WAIT);
+        }
+        queue.add(message);
+        if(idle)
+            LockSupport.unpark(writer);
+    }
+
+    /**
+     * Write out every queued message, flush and stop the writer
+     *
+     * @throws InterruptedException if interrupted waiting for the writer
+     */
+    public void close() throws InterruptedException {
+        closed = true;
+        LockSupport.unpark(writer);
+        writer.join();
+    }
+
+    /**
+     * Write messages until closed, flushing when enough bytes are buffered,
+     * the oldest has waited long enough, or the sink is closing
+     */
+    private void write(){
+        int buffered = 0;
+        long deadline = 0;
+        try{
+            while(true){
+                String message = queue.poll();
+                if(message == null){
+                    if(buffered > 0 && (closed || flushNanos == 0
+                            || System.nanoTime() - deadline >= 0)){
+                        flush();
+                        buffered = 0;
+                        continue;
+                    }
+                    if(closed)
+                        return;
+                    // look once more after saying so, in case a message
+                    // slipped in before add() could see the flag
+                    idle = true;
+                    if(queue.isEmpty() && !closed){
+                        if(buffered > 0)
+                            LockSupport.parkNanos(deadline
+                                    - System.nanoTime());
+                        else
+                            LockSupport.park();
+                    }
+                    idle = false;
+                    continue;
+                }
+                pending.decrementAndGet();
+                if(buffered == 0)
+                    deadline = System.nanoTime() + flushNanos;
+                out.write(message);
+                out.write('\n');
+                written.increment();
+                buffered += message.length() + 1;
+                if(buffered >= flushBytes){
+                    flush();
+                    buffered = 0;
+                }
+            }
+        } catch (IOException e){
+            // nothing more can be written, so stop holding up the workers
+            System.err.println("Output failed: " + e);
+            closed = true;
+            queue.clear();
+            pending.set(0);
+        }
+    }
+
+    /**
+     * Flush the output
+     *
+     * @throws IOException if the output fails
+     */
+    private void flush() throws IOException {
+        out.flush();
+        flushes.increment();
+    }
+
+    @Override
+    public int getCapacity(){
+        return capacity;
+    }
+
+    @Override
+    public int getPending(){
+        return Math.max(0, Math.min(capacity, pending.get()));
+    }
+
+    @Override
+    public long getWritten(){
+        return written.sum();
+    }
+
+    @Override
+    public long getFlushes(){
+        return flushes.sum();
+    }
+
+    @Override
+    public long getBlocked(){
+        return blocked.sum();
+    }
+
+    /**
+     * @return the bytes written between flushes
+     */
+    public int getFlushBytes(){
+        return flushBytes;
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * @filename OutputSinkMBean.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The JMX view of an OutputSink
+ */
+
+/**
+ * What JMX can read from an {@link OutputSink}
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public interface OutputSinkMBean {
+
+    /**
+     * @return the most messages waiting to be written
+     */
+    int getCapacity();
+
+    /**
+     * @return the number of messages waiting to be written
+     */
+    int getPending();
+
+    /**
+     * @return the number of messages written
+     */
+    long getWritten();
+
+    /**
+     * @return the number of times the output was flushed
+     */
+    long getFlushes();
+
+    /**
+     * @return how many times a worker had to wait for room
+     */
+    long getBlocked();
+}
@@ -0,0 +1,272 @@
+/*
+ * @filename PacketRing.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  A bounded, off-heap ring of fixed size packet slots between the receiver
+ * and the decrypt workers
+ */
+
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A PacketRing holds packets waiting to be decrypted. All of its memory is
+ * allocated up front: one direct buffer cut into fixed size slots, each
+ * holding the packet's length, the time it arrived and its payload. Packets
+ * are copied into a slot by the receiver and out of it by a worker, so nothing
+ * is allocated per packet. When the ring is full the {@link Overflow} policy
+ * decides whether the new packet is dropped, the oldest waiting packet is
+ * dropped, or the receiver waits, and every drop is counted
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class PacketRing implements PacketRingMBean {
+
+    /**
+     * What to do with a packet that arrives when the ring is full
+     */
+    public enum Overflow {
+        /** Drop the packet that just arrived */
+        DROP_NEWEST,
+        /** Drop the packet that has waited longest to make room */
+        DROP_OLDEST,
+        /** Make the receiver wait for room */
+        BLOCK
+    }
+
+    /** Slot header: the payload length, then the arrival time */
+    private static final int HEADER = Integer.BYTES + Long.BYTES;
+
+    /** The slots */
+    private final ByteBuffer slots;
+
+    /** Where each waiting packet came from, the only part kept on the heap */
+    private final SocketAddress[] sources;
+
+    /** The number of slots */
+    private final int capacity;
+
+    /** The most payload bytes a slot holds */
+    private final int slotSize;
+
+    /** The overflow policy */
+    private final Overflow overflow;
+
+    /** Guards head and count */
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when a packet is added */
+    private final Condition notEmpty = lock.newCondition();
+
+    /** Signalled when a packet is taken */
+    private final Condition notFull = lock.newCondition();
+
+    /** The slot of the oldest waiting packet */
+    private int head;
+
+    /** The number of waiting packets */
+    private int count;
+
+    /** Packets dropped on arrival */
+    private final LongAdder droppedNewest = new LongAdder();
+
+    /** Waiting packets dropped to make room */
+    private final LongAdder droppedOldest = new LongAdder();
+
+    /** Times the receiver waited for room */
+    private final LongAdder blocked = new LongAdder();
+
+    /**
+     * The most slots of a size that fit in one buffer, so that no offset
+     * into it overflows an int
+     *
+     * @param slotSize the most payload bytes a slot holds, at least 1
+     * @return the most slots
+     */
+    public static int maxCapacity(int slotSize){
+        if(slotSize > Integer.MAX_VALUE - HEADER)
+            return 0;
+        return Integer.MAX_VALUE / (HEADER + slotSize);
+    }
+
+    /**
+     * Create a new PacketRing
+     *
+     * @param capacity the number of slots
+     * @param slotSize the most payload bytes a slot holds
+     * @param overflow what to do when the ring is full
+     * @throws IllegalArgumentException if capacity or slotSize is less than
+     *                                  1, or the slots won't fit in one
+     *                                  buffer
+     */
+    public PacketRing(int capacity, int slotSize, Overflow overflow){
+        if(capacity < 1 || slotSize < 1)
+            throw new IllegalArgumentException("capacity and slotSize must " +
+                    "be at least 1");
+        if(capacity > maxCapacity(slotSize))
+            throw new IllegalArgumentException("at most " +
+                    maxCapacity(slotSize) + " slots of " + slotSize +
+                    " bytes fit in one buffer");
+        this.capacity = capacity;
+        this.slotSize = slotSize;
+        this.overflow = overflow;
+        this.slots = ByteBuffer.allocateDirect(capacity * (HEADER + slotSize));
+        this.sources = new SocketAddress[capacity];
+    }
+
+    /**
+     * Add a packet, applying the overflow policy if the ring is full
+     *
+     * @param source where the packet came from, or null if not known
+     * @param buf the buffer holding the payload
+     * @param off where the payload starts
+     * @param len the length of the payload
+     * @param received when the packet arrived, in System.nanoTime()
+     * @return true if the packet was added, false if it was dropped
+     * @throws InterruptedException if interrupted while waiting for room
+     */
+    public boolean put(SocketAddress source, byte[] buf, int off, int len,
+                       long received) throws InterruptedException {
+        if(len > slotSize){
+            droppedNewest.increment();
+            return false;
+        }
+        lock.lockInterruptibly();
+        try{
+            if(count == capacity){
+                switch(overflow){
+                    case DROP_NEWEST:
+                        droppedNewest.increment();
+                        return false;
+                    case DROP_OLDEST:
+                        sources[head] = null;
+                        head = (head + 1) % capacity;
+                        count--;
+                        droppedOldest.increment();
+                        break;
+                    case BLOCK:
+                        blocked.increment();
+                        while(count == capacity)
+                            notFull.await();
+                        break;
+                }
+            }
+            int slot = (head + count) % capacity;
+            int base = slot * (HEADER + slotSize);
+            slots.putInt(base, len);
+            slots.putLong(base + Integer.BYTES, received);
+            slots.put(base + HEADER, buf, off, len);
+            sources[slot] = source;
+            count++;
+            notEmpty.signal();
+            return true;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Take the oldest packet, waiting for one if the ring is empty
+     *
+     * @param entry where to copy the packet, reused by the caller
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public void take(Entry entry) throws InterruptedException {
+        lock.lockInterruptibly();
+        try{
+            while(count == 0)
+                notEmpty.await();
+            int base = head * (HEADER + slotSize);
+            entry.length = slots.getInt(base);
+            entry.received = slots.getLong(base + Integer.BYTES);
+            slots.get(base + HEADER, entry.data, 0, entry.length);
+            entry.source = sources[head];
+            sources[head] = null;
+            head = (head + 1) % capacity;
+            count--;
+            notFull.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Make an entry big enough to take any packet from this ring
+     *
+     * @return the entry
+     */
+    public Entry newEntry(){
+        return new Entry(slotSize);
+    }
+
+    @Override
+    public int getCapacity(){
+        return capacity;
+    }
+
+    @Override
+    public int getOccupancy(){
+        lock.lock();
+        try{
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String getOverflowPolicy(){
+        return overflow.name();
+    }
+
+    @Override
+    public long getDroppedNewest(){
+        return droppedNewest.sum();
+    }
+
+    @Override
+    public long getDroppedOldest(){
+        return droppedOldest.sum();
+    }
+
+    @Override
+    public long getBlocked(){
+        return blocked.sum();
+    }
+
+    /**
+     * An Entry is a consumer's reusable copy of one packet
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    public static class Entry{
+
+        /** Where the packet came from, null if not known */
+        public SocketAddress source;
+
+        /** The payload, valid up to length */
+        public final byte[] data;
+
+        /** The length of the payload */
+        public int length;
+
+        /** When the packet arrived, in System.nanoTime() */
+        public long received;
+
+        /**
+         * Create a new Entry
+         *
+         * @param size the most payload bytes it holds
+         */
+        Entry(int size){
+            this.data = new byte[size];
+        }
+    }
+}
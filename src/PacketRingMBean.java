@@ -0,0 +1,48 @@
+/*
+ * @filename PacketRingMBean.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The JMX view of a PacketRing
+ */
+
+/**
+ * What JMX can read from a {@link PacketRing}
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public interface PacketRingMBean {
+
+    /**
+     * @return the number of slots
+     */
+    int getCapacity();
+
+    /**
+     * @return the number of packets waiting in the ring
+     */
+    int getOccupancy();
+
+    /**
+     * @return what happens when a packet arrives and the ring is full
+     */
+    String getOverflowPolicy();
+
+    /**
+     * @return packets dropped on arrival because the ring was full or they
+     * were too big for a slot
+     */
+    long getDroppedNewest();
+
+    /**
+     * @return waiting packets dropped to make room for new ones
+     */
+    long getDroppedOldest();
+
+    /**
+     * @return how many times the receiver had to wait for room
+     */
+    long getBlocked();
+}
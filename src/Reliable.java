@@ -0,0 +1,98 @@
+/*
+ * @filename Reliable.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The wire format of reliably delivered datagrams and their acks
+ */
+
+/**
+ * In reliable mode every datagram a Leaker sends is wrapped in an envelope
+ * with a sequence number, and the Reporter acks each one from the socket it
+ * arrived on
+ * <pre>
+ * envelope: [0x85][stream:8][sequence:4][base:4][datagram]
+ * ack:      [0x84][stream:8][next:4][selective:8]
+ * </pre>
+ * All numbers are big-endian. The stream is a random id picked by the sender,
+ * so a restarted Leaker on the same port starts afresh. An envelope's base is
+ * the oldest sequence number the sender is still waiting on when it sends the
+ * envelope. The Reporter treats everything before it as settled, whether it
+ * arrived or the sender gave up on it, so a lost datagram never holds up a
+ * stream, and a Reporter that has never seen or has forgotten a stream picks
+ * it up from there. An ack's next is the
+ * first sequence number not yet received, so everything before it is
+ * acknowledged, and bit i of selective acknowledges sequence next + 1 + i.
+ * Sequence numbers wrap, and are compared by their signed difference. The
+ * datagram inside an envelope is any datagram that could be sent without
+ * one, which is why every format leaves {@link #HEADER} bytes of a
+ * {@link Hybrid#MAX_DATAGRAM} free
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public final class Reliable {
+
+    /** The type byte of an envelope */
+    public static final byte ENVELOPE = (byte) 0x85;
+
+    /** The type byte of an ack */
+    public static final byte ACK = (byte) 0x84;
+
+    /** The size of an envelope's header */
+    public static final int HEADER = 1 + 8 + 4 + 4;
+
+    /** The size of an ack */
+    public static final int ACK_SIZE = 1 + 8 + 4 + 8;
+
+    /** The most datagrams a sender may have unacknowledged */
+    public static final int MAX_WINDOW = 1024;
+
+    /**
+     * Not to be constructed
+     */
+    private Reliable(){}
+
+    /**
+     * Write an envelope's header
+     *
+     * @param buf where to write it, from index 0
+     * @param stream the sender's stream id
+     * @param sequence the datagram's sequence number
+     * @param base the oldest sequence number the sender is waiting on
+     */
+    public static void putHeader(byte[] buf, long stream, int sequence,
+                                 int base){
+        buf[0] = ENVELOPE;
+        Hybrid.putLong(buf, 1, stream);
+        Hybrid.putInt(buf, 9, sequence);
+        putBase(buf, base);
+    }
+
+    /**
+     * Rewrite an envelope's base, as it is before each retransmit
+     *
+     * @param buf the envelope, from index 0
+     * @param base the oldest sequence number the sender is waiting on
+     */
+    public static void putBase(byte[] buf, int base){
+        Hybrid.putInt(buf, 13, base);
+    }
+
+    /**
+     * Write an ack
+     *
+     * @param buf where to write it, from index 0
+     * @param stream the sender's stream id
+     * @param next the first sequence number not yet received
+     * @param selective the sequence numbers received after next
+     */
+    public static void putAck(byte[] buf, long stream, int next,
+                              long selective){
+        buf[0] = ACK;
+        Hybrid.putLong(buf, 1, stream);
+        Hybrid.putInt(buf, 9, next);
+        Hybrid.putLong(buf, 13, selective);
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * @filename ReliableSender.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The Leaker's side of reliable delivery, a window of datagrams in flight
+ * that are retransmitted until acked
+ */
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.security.SecureRandom;
+
+/**
+ * The ReliableSender wraps each datagram in a {@link Reliable} envelope and
+ * keeps a copy until the Reporter acks it, so up to a window of datagrams are
+ * in flight at once rather than one per round trip. A thread reads the acks
+ * off the same socket and, between acks, retransmits any datagram whose timer
+ * has run out. The timeout follows the measured round trip time the way TCP's
+ * does, and doubles for each retransmit of the same datagram, which is given
+ * up on after {@link #MAX_RETRIES}. Every transmit carries the oldest
+ * sequence number still waiting, so the Reporter moves past one given up on.
+ * Sending blocks while the window is full.
+ * A ReliableSender is thread safe
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class ReliableSender {
+
+    /** The default number of datagrams in flight */
+    public static final int WINDOW = 64;
+
+    /** The most times a datagram is retransmitted before giving up */
+    public static final int MAX_RETRIES = 8;
+
+    /** The timeout before any round trip is measured, in nanoseconds */
+    private static final long INITIAL_RTO = 200_000_000L;
+
+    /** The shortest timeout, in nanoseconds */
+    private static final long MIN_RTO = 10_000_000L;
+
+    /** The longest timeout, in nanoseconds */
+    private static final long MAX_RTO = 2_000_000_000L;
+
+    /** How often the ack thread checks timers with no acks coming, in
+     * milliseconds */
+    private static final int TICK_MILLIS = 5;
+
+    /** The socket to send through and read acks from */
+    private final DatagramSocket socket;
+
+    /** The destination to send to */
+    private final InetSocketAddress destination;
+
+    /** This sender's stream id */
+    private final long stream;
+
+    /** The most datagrams in flight */
+    private final int window;
+
+    /** Each slot's enveloped datagram, by sequence number modulo window */
+    private final byte[][] packets;
+
+    /** The length of each slot's datagram */
+    private final int[] lengths;
+
+    /** When each slot's datagram was last sent, in nanoTime */
+    private final long[] sent;
+
+    /** When each slot's datagram is next retransmitted, in nanoTime */
+    private final long[] deadlines;
+
+    /** How many times each slot's datagram has been retransmitted */
+    private final int[] retries;
+
+    /** Whether each slot's datagram is waiting for an ack */
+    private final boolean[] waiting;
+
+    /** The oldest sequence number still waiting, or next if none is */
+    private long base;
+
+    /** The sequence number of the next datagram */
+    private long next;
+
+    /** The smoothed round trip time, in nanoseconds, 0 until measured */
+    private long srtt;
+
+    /** The round trip time's mean deviation, in nanoseconds */
+    private long rttvar;
+
+    /** The retransmit timeout, in nanoseconds */
+    private long rto = INITIAL_RTO;
+
+    /** Datagrams retransmitted */
+    private long retransmits;
+
+    /** Datagrams given up on */
+    private long lost;
+
+    /**
+     * Create a new ReliableSender and start reading acks
+     *
+     * @param socket the socket to send through
+     * @param destination where to send to
+     * @param window the most datagrams in flight, from 1 up to
+     *               Reliable.MAX_WINDOW
+     * @throws IllegalArgumentException if the window is out of range
+     */
+    public ReliableSender(DatagramSocket socket,
+                          InetSocketAddress destination, int window){
+        if(window < 1 || window > Reliable.MAX_WINDOW)
+            throw new IllegalArgumentException("window must be from 1 to "
+                    + Reliable.MAX_WINDOW);
+        this.socket = socket;
+        this.destination = destination;
+        this.stream = new SecureRandom().nextLong();
+        this.window = window;
+        this.packets = new byte[window][Hybrid.MAX_DATAGRAM];
+        this.lengths = new int[window];
+        this.sent = new long[window];
+        this.deadlines = new long[window];
+        this.retries = new int[window];
+        this.waiting = new boolean[window];
+        Thread acks = new Thread(this::readAcks, "ReliableSender-acks");
+        acks.setDaemon(true);
+        acks.start();
+    }
+
+    /**
+     * Send a datagram, waiting for room in the window first
+     *
+     * @param buf the buffer holding the datagram
+     * @param off where the datagram starts in the buffer
+     * @param len the length of the datagram, at most
+     *            Hybrid.MAX_DATAGRAM - Reliable.HEADER
+     * @throws InterruptedException if interrupted waiting for room
+     */
+    public synchronized void send(byte[] buf, int off, int len)
+            throws InterruptedException {
+        if(len > Hybrid.MAX_DATAGRAM - Reliable.HEADER)
+            throw new IllegalArgumentException("datagram too long");
+        while(next - base >= window)
+            wait();
+        int slot = slot(next);
+        Reliable.putHeader(packets[slot], stream, (int) next, (int) base);
+        System.arraycopy(buf, off, packets[slot], Reliable.HEADER, len);
+        lengths[slot] = Reliable.HEADER + len;
+        retries[slot] = 0;
+        waiting[slot] = true;
+        next++;
+        transmit(slot, System.nanoTime());
+    }
+
+    /**
+     * Wait until every datagram sent has been acked or given up on
+     *
+     * @throws InterruptedException if interrupted waiting
+     */
+    public synchronized void drain() throws InterruptedException {
+        while(base < next)
+            wait();
+    }
+
+    /**
+     * @return the number of datagrams retransmitted
+     */
+    public synchronized long getRetransmits(){
+        return retransmits;
+    }
+
+    /**
+     * @return the number of datagrams given up on
+     */
+    public synchronized long getLost(){
+        return lost;
+    }
+
+    /**
+     * Read acks until the socket is closed, checking the timers whenever an
+     * ack arrives or none has for a tick
+     */
+    private void readAcks(){
+        byte[] buffer = new byte[Reliable.ACK_SIZE];
+        DatagramPacket dp = new DatagramPacket(buffer, buffer.length);
+        try{
+            socket.setSoTimeout(TICK_MILLIS);
+        } catch (IOException e){
+            e.printStackTrace(System.err);
+            return;
+        }
+        while(!socket.isClosed()){
+            try{
+                dp.setLength(buffer.length);
+                socket.receive(dp);
+                if(dp.getLength() == Reliable.ACK_SIZE
+                        && buffer[0] == Reliable.ACK
+                        && Hybrid.getLong(buffer, 1) == stream)
+                    ack(Hybrid.getInt(buffer, 9), Hybrid.getLong(buffer, 13));
+            } catch (SocketTimeoutException e){
+                // no ack this tick
+            } catch (IOException e){
+                if(socket.isClosed())
+                    return;
+                System.err.println(e);
+            }
+            retransmit(System.nanoTime());
+        }
+    }
+
+    /**
+     * Mark datagrams acked
+     *
+     * @param cumulative the first sequence number not yet received
+     * @param selective bit i set if cumulative + 1 + i was received
+     */
+    private synchronized void ack(int cumulative, long selective){
+        long now = System.nanoTime();
+        // widen the wire's 32 bits to the nearest sequence number
+        long received = base + (cumulative - (int) base);
+        if(received > next)
+            return;
+        for(long n = base; n < received; n++)
+            acked(n, now);
+        for(int i = 0; i < Long.SIZE; i++)
+            if((selective & 1L << i) != 0){
+                long n = received + 1 + i;
+                if(n >= base && n < next)
+                    acked(n, now);
+            }
+        slide();
+    }
+
+    /**
+     * Stop waiting on a datagram, measuring the round trip if it wasn't
+     * retransmitted
+     *
+     * @param n its sequence number
+     * @param now the current nanoTime
+     */
+    private void acked(long n, long now){
+        int slot = slot(n);
+        if(!waiting[slot])
+            return;
+        waiting[slot] = false;
+        if(retries[slot] > 0)
+            return;
+        long rtt = now - sent[slot];
+        if(srtt == 0){
+            srtt = rtt;
+            rttvar = rtt / 2;
+        } else {
+            rttvar = (3 * rttvar + Math.abs(srtt - rtt)) / 4;
+            srtt = (7 * srtt + rtt) / 8;
+        }
+        rto = Math.min(MAX_RTO, Math.max(MIN_RTO, srtt + 4 * rttvar));
+    }
+
+    /**
+     * Retransmit every datagram whose timer has run out, giving up on those
+     * that have been retransmitted too often
+     *
+     * @param now the current nanoTime
+     */
+    private synchronized void retransmit(long now){
+        for(long n = base; n < next; n++){
+            int slot = slot(n);
+            if(!waiting[slot] || now - deadlines[slot] < 0)
+                continue;
+            if(retries[slot] == MAX_RETRIES){
+                waiting[slot] = false;
+                lost++;
+                System.err.printf("datagram %d not acknowledged\n", n);
+                continue;
+            }
+            retries[slot]++;
+            retransmits++;
+            transmit(slot, now);
+        }
+        slide();
+    }
+
+    /**
+     * Send a slot's datagram and start its timer, backing off for each retry
+     *
+     * @param slot the slot
+     * @param now the current nanoTime
+     */
+    private void transmit(int slot, long now){
+        Reliable.putBase(packets[slot], (int) base);
+        sent[slot] = now;
+        deadlines[slot] = now + Math.min(MAX_RTO, rto << retries[slot]);
+        try{
+            socket.send(new DatagramPacket(packets[slot], 0, lengths[slot],
+                    destination));
+        } catch (IOException e){
+            // the timer will send it again
+            System.err.println(e);
+        }
+    }
+
+    /**
+     * Move the base past every datagram no longer waiting, and wake anyone
+     * waiting for room
+     */
+    private void slide(){
+        long old = base;
+        while(base < next && !waiting[slot(base)])
+            base++;
+        if(base != old)
+            notifyAll();
+    }
+
+    /**
+     * @param n a sequence number
+     * @return the slot it is kept in
+     */
+    private int slot(long n){
+        return (int) (n % window);
+    }
+}
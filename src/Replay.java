@@ -0,0 +1,258 @@
+/*
+ * @filename Replay.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Sends a capture of ciphertexts to a Reporter
+ */
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigInteger;
+import java.net.DatagramSocket;
+import java.net.InetSocketAddress;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.util.NoSuchElementException;
+import java.util.Scanner;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replay sends each ciphertext of a capture written by {@link BulkEncrypt},
+ * or captured off the wire, to a Reporter through a {@link ReporterProxy},
+ * in order. Nothing is encrypted, so a pre-staged batch goes out as fast as
+ * the network allows, or at a given rate so the Reporter's ring isn't
+ * overrun. The proxy can frame the ciphertexts and deliver them reliably,
+ * the same as for the Leaker
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class Replay {
+
+    /** The usage message */
+    private static final String USAGE = "Usage: java Replay <rhost> <rport> " +
+            "<lhost> <lport> <publickeyfile> <capture> [-binary] " +
+            "[-frame <slots>] " +
+            "[-reliable <window>] [-rate <ciphertexts/s>]\n";
+
+    /**
+     * The driver method
+     *
+     * @param args the command line args
+     */
+    public static void main(String[] args){
+        if(args.length < 6){
+            System.err.println("Missing arguments");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        int rport = parseOption(args[1], "port");
+        int lport = parseOption(args[3], "port");
+        boolean binary = false;
+        int frame = 0;
+        int window = 0;
+        int rate = 0;
+        for(int i = 6; i < args.length; i++){
+            if(args[i].equals("-binary"))
+                binary = true;
+            else if(args[i].equals("-frame") && i + 1 < args.length)
+                frame = parsePositive(args[++i], "slot count");
+            else if(args[i].equals("-reliable") && i + 1 < args.length)
+                window = parsePositive(args[++i], "window");
+            else if(args[i].equals("-rate") && i + 1 < args.length)
+                rate = parsePositive(args[++i], "rate");
+            else{
+                System.err.printf("'%s' not a valid option\n", args[i]);
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        }
+
+        // the modulus gives framed datagrams their key id
+        BigInteger modulus = null;
+        try(
+                Scanner s = new Scanner(new File(args[4]))
+                ){
+            s.nextLine();
+            modulus = new BigInteger(s.nextLine());
+        } catch (FileNotFoundException e) {
+            System.err.printf("Could not open file '%s'\n", args[4]);
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (NumberFormatException | NoSuchElementException e) {
+            System.err.printf("file '%s' has invalid keys\n", args[4]);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        DatagramSocket lsocket = null;
+        try{
+            lsocket = new DatagramSocket(new InetSocketAddress(args[2],
+                    lport));
+        } catch (SocketException e) {
+            System.err.printf("Could not bind to %s:%d\n", args[2], lport);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        ReporterProxy proxy = new ReporterProxy(lsocket,
+                new InetSocketAddress(args[0], rport));
+        try{
+            proxy.setFraming(modulus, frame);
+            if(window != 0)
+                proxy.setReliable(window);
+        } catch (IllegalArgumentException iae){
+            System.err.println(iae.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        long sent = 0;
+        try(
+                InputStream in = new BufferedInputStream(
+                        new FileInputStream(args[5]), 1 << 16)
+                ){
+            sent = binary ? replayBinary(in, proxy, rate)
+                    : replayText(in, proxy, rate);
+            proxy.drain();
+        } catch (FileNotFoundException e) {
+            System.err.printf("Could not open file '%s'\n", args[5]);
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
+            e.printStackTrace(System.err);
+            System.exit(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        ReliableSender reliable = proxy.getReliable();
+        if(reliable != null && reliable.getLost() > 0)
+            System.err.printf("%d datagrams not acknowledged\n",
+                    reliable.getLost());
+        System.err.printf("%d ciphertexts sent\n", sent);
+        lsocket.close();
+    }
+
+    /**
+     * Send a text capture, one decimal ciphertext per line
+     *
+     * @param in the capture
+     * @param proxy where to send
+     * @param rate ciphertexts per second, 0 for no limit
+     * @return the number of ciphertexts sent
+     * @throws IOException if reading the capture fails
+     */
+    private static long replayText(InputStream in, ReporterProxy proxy,
+                                   int rate) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in,
+                StandardCharsets.US_ASCII));
+        long sent = 0;
+        long line = 0;
+        long next = System.nanoTime();
+        String text;
+        while((text = reader.readLine()) != null){
+            line++;
+            if(text.isBlank())
+                continue;
+            BigInteger ciphertext;
+            try{
+                ciphertext = new BigInteger(text.trim());
+            } catch (NumberFormatException nfe){
+                System.err.printf("line %d is not a ciphertext\n", line);
+                continue;
+            }
+            next = pace(next, rate);
+            proxy.report(ciphertext);
+            sent++;
+        }
+        return sent;
+    }
+
+    /**
+     * Send a binary capture of 256 byte records
+     *
+     * @param in the capture
+     * @param proxy where to send
+     * @param rate ciphertexts per second, 0 for no limit
+     * @return the number of ciphertexts sent
+     * @throws IOException if reading the capture fails
+     */
+    private static long replayBinary(InputStream in, ReporterProxy proxy,
+                                     int rate) throws IOException {
+        byte[] record = new byte[BulkDecrypt.RECORD];
+        long sent = 0;
+        long next = System.nanoTime();
+        while(true){
+            int got = in.readNBytes(record, 0, record.length);
+            if(got < record.length){
+                if(got > 0)
+                    System.err.printf("capture ends with a partial record " +
+                            "of %d bytes\n", got);
+                return sent;
+            }
+            next = pace(next, rate);
+            proxy.report(new BigInteger(1, record));
+            sent++;
+        }
+    }
+
+    /**
+     * Wait for the next ciphertext's turn
+     *
+     * @param next when it may be sent, in nanoTime
+     * @param rate ciphertexts per second, 0 for no limit
+     * @return when the one after it may be sent
+     */
+    private static long pace(long next, int rate){
+        if(rate == 0)
+            return next;
+        for(long wait = next - System.nanoTime(); wait > 0;
+            wait = next - System.nanoTime())
+            LockSupport.parkNanos(wait);
+        // don't save up time while the proxy is blocked
+        return Math.max(next, System.nanoTime() - 1_000_000_000L / rate)
+                + 1_000_000_000L / rate;
+    }
+
+    /**
+     * Parse the number after an option
+     *
+     * @param str the string to try to parse into an int
+     * @param what what the number is, for the error message
+     * @return the integer (hopefully)
+     */
+    private static int parseOption(String str, String what){
+        try{
+            return Integer.parseInt(str);
+        } catch (NumberFormatException nfe){
+            System.err.printf("'%s' not a valid %s\n", str, what);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        return -1;
+    }
+
+    /**
+     * Parse the number after an option that has to be at least 1
+     *
+     * @param str the string to try to parse into an int
+     * @param what what the number is, for the error message
+     * @return the integer
+     */
+    private static int parsePositive(String str, String what){
+        int value = parseOption(str, what);
+        if(value < 1){
+            System.err.printf("'%s' not a valid %s\n", str, what);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        return value;
+    }
+}
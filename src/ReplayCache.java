@@ -0,0 +1,145 @@
+/*
+ * @filename ReplayCache.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  A bounded set of recently decrypted ciphertexts, so retransmits don't have
+ * to be decrypted again
+ */
+
+/**
+ * The ReplayCache remembers the ciphertexts the Reporter has decrypted lately,
+ * by a 128 bit digest, so a Leaker retransmitting over a lossy network doesn't
+ * cost a modPow per copy. It never grows: its entries live in flat arrays,
+ * four to a set, and a new digest takes the place of an expired or the oldest
+ * entry in its set. Entries also expire after a fixed time. It can keep the
+ * messages each ciphertext decrypted to too, so that a duplicate can be
+ * reported again instead of dropped. A ReplayCache is thread safe and shared
+ * by all of the {@link DecryptPool}'s workers. A ciphertext is only added
+ * once it has been decrypted, so copies that arrive while the first is being
+ * decrypted are still decrypted
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class ReplayCache {
+
+    /** What {@link #get} returns for a ciphertext it hasn't seen, told apart
+     * from any messages by identity */
+    public static final String[] UNSEEN = new String[0];
+
+    /** The number of entries in each set */
+    private static final int WAYS = 4;
+
+    /** Mask to pick a set with, the number of sets less one */
+    private final int setMask;
+
+    /** The high half of each entry's digest */
+    private final long[] high;
+
+    /** The low half of each entry's digest */
+    private final long[] low;
+
+    /** When each entry was added, in nanoTime */
+    private final long[] added;
+
+    /** Whether each entry holds a digest */
+    private final boolean[] used;
+
+    /** The messages of each entry, null if plaintexts aren't kept */
+    private final String[][] plaintexts;
+
+    /** How long an entry lives, in nanoseconds */
+    private final long ttl;
+
+    /**
+     * Create a new ReplayCache
+     *
+     * @param capacity the most ciphertexts to remember, rounded up to a power
+     *                 of two
+     * @param ttlMillis how long to remember a ciphertext, in milliseconds
+     * @param keepPlaintexts whether to remember the plaintexts as well
+     * @throws IllegalArgumentException if capacity or ttlMillis is less
+     *                                  than 1
+     */
+    public ReplayCache(int capacity, long ttlMillis, boolean keepPlaintexts){
+        if(capacity < 1 || capacity > 1 << 30)
+            throw new IllegalArgumentException("capacity must be from 1 to "
+                    + (1 << 30));
+        if(ttlMillis < 1)
+            throw new IllegalArgumentException("ttl must be at least 1");
+        int size = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        this.setMask = size / WAYS - 1;
+        this.high = new long[size];
+        this.low = new long[size];
+        this.added = new long[size];
+        this.used = new boolean[size];
+        this.plaintexts = keepPlaintexts ? new String[size][] : null;
+        this.ttl = ttlMillis * 1_000_000L;
+    }
+
+    /**
+     * Look up a ciphertext
+     *
+     * @param hi the high 64 bits of the ciphertext's digest
+     * @param lo the low 64 bits of the ciphertext's digest
+     * @return {@link #UNSEEN} if it hasn't been seen, null if it has but
+     *         there is no plaintext to report, or else its messages
+     */
+    public synchronized String[] get(long hi, long lo){
+        int i = find(hi, lo, System.nanoTime());
+        if(i < 0)
+            return UNSEEN;
+        return plaintexts == null ? null : plaintexts[i];
+    }
+
+    /**
+     * Remember a ciphertext
+     *
+     * @param hi the high 64 bits of the ciphertext's digest
+     * @param lo the low 64 bits of the ciphertext's digest
+     * @param plaintext the messages it decrypted to, or null if it didn't
+     *                  decrypt
+     */
+    public synchronized void put(long hi, long lo, String[] plaintext){
+        long now = System.nanoTime();
+        int i = find(hi, lo, now);
+        if(i < 0){
+            // take an empty or expired way, or else the oldest one
+            int set = ((int) lo & setMask) * WAYS;
+            i = set;
+            for(int way = set; way < set + WAYS; way++){
+                if(!used[way] || now - added[way] >= ttl){
+                    i = way;
+                    break;
+                }
+                if(added[way] - added[i] < 0)
+                    i = way;
+            }
+        }
+        high[i] = hi;
+        low[i] = lo;
+        added[i] = now;
+        used[i] = true;
+        if(plaintexts != null)
+            plaintexts[i] = plaintext;
+    }
+
+    /**
+     * Find the live entry for a digest
+     *
+     * @param hi the high 64 bits of the digest
+     * @param lo the low 64 bits of the digest
+     * @param now the current nanoTime
+     * @return the index of the entry, or -1 if there is none
+     */
+    private int find(long hi, long lo, long now){
+        int set = ((int) lo & setMask) * WAYS;
+        for(int way = set; way < set + WAYS; way++)
+            if(used[way] && high[way] == hi && low[way] == lo
+                    && now - added[way] < ttl)
+                return way;
+        return -1;
+    }
+}
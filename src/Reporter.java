@@ -9,11 +9,17 @@
  */
 
 import java.io.File;
+import java.io.FileDescriptor;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
 import java.math.BigInteger;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
-import java.net.SocketException;
+import java.net.StandardSocketOptions;
+import java.nio.channels.DatagramChannel;
+import java.nio.file.Paths;
+import java.util.NoSuchElementException;
 import java.util.Scanner;
 
 /**
@@ -22,7 +28,10 @@ import java.util.Scanner;
  * them using the RSA algorithm. The UPD payloads are in the form of 256 byte
  * BigInteger. The keys are given from the command line. Once decrypted, the
  * unencrypted BigIntegers are decoded using {@link OAEP} to conver them to a
- * string
+ * string. With several lanes the port is opened once per lane with
+ * SO_REUSEPORT, and each lane has its own receiver, ring and decrypt workers,
+ * so the kernel's flow hashing spreads senders over them with no hand off
+ * between lanes
  *
  * @author Chris Tremblay (cst1465)
  * @version 4/13/2021
@@ -31,7 +40,20 @@ public class Reporter {
 
     /** The usage message */
     private static final String USAGE = "Usage: java Reporter <rhost> <rport>" +
-            " <privatekeyfile>\n";
+            " <privatekeyfile> [workers] [-nio]" +
+            " [-queue <slots>] [-overflow <block|drop-newest|drop-oldest>]" +
+            " [-rate <packets/s> [-burst <packets>]] [-reliable]" +
+            " [-dedup <entries> [-dedup-ttl <seconds>] [-dedup-replay]]" +
+            " [-sessions <count>] [-session-ttl <seconds>]" +
+            " [-lanes <count>]" +
+            " [-output <file>] [-flush-millis <millis>] [-flush-bytes <bytes>]" +
+            " [-journal <directory> [-journal-sync <millis>]]\n";
+
+    /**
+     * The number of optional CRT lines after the exponent and modulus in the
+     * private key file: p, q, dP, dQ and qInv
+     */
+    private static final int CRT_PARAMS = 5;
 
     /**
      * The driver method
@@ -60,42 +82,322 @@ public class Reporter {
             indexOutOfBounds(iob);
         }
 
-        // Try to open the port
-        DatagramSocket rsocket = null;
+        // Get the options after the private key file: the number of decrypt
+        // workers, one per core by default, and which receiver to use
+        int workers = Runtime.getRuntime().availableProcessors();
+        boolean nio = false;
+        int queue = DecryptPool.RING_SIZE;
+        PacketRing.Overflow overflow = PacketRing.Overflow.BLOCK;
+        int rate = 0;
+        int dedup = 0;
+        int sessionCount = SessionTable.CAPACITY;
+        int sessionTtl = SessionTable.TTL_SECONDS;
+        int dedupTtl = 60;
+        boolean dedupReplay = false;
+        boolean reliable = false;
+        int burst = 0;
+        int lanes = 1;
+        String output = null;
+        int flushMillis = OutputSink.FLUSH_MILLIS;
+        int flushBytes = OutputSink.FLUSH_BYTES;
+        String journalDirectory = null;
+        int journalSync = Journal.SYNC_MILLIS;
+        for(int i = 3; i < args.length; i++){
+            if(args[i].equals("-nio")){
+                nio = true;
+                continue;
+            }
+            if(args[i].equals("-reliable")){
+                reliable = true;
+                continue;
+            }
+            if(args[i].equals("-lanes")){
+                lanes = parsePositive(args, ++i, "lane count");
+                continue;
+            }
+            if(args[i].equals("-output")){
+                try{
+                    output = args[++i];
+                } catch (IndexOutOfBoundsException iob){
+                    indexOutOfBounds(iob);
+                }
+                continue;
+            }
+            if(args[i].equals("-journal")){
+                try{
+                    journalDirectory = args[++i];
+                } catch (IndexOutOfBoundsException iob){
+                    indexOutOfBounds(iob);
+                }
+                continue;
+            }
+            if(args[i].equals("-journal-sync")){
+                journalSync = parsePositive(args, ++i, "journal sync interval");
+                continue;
+            }
+            if(args[i].equals("-flush-millis")){
+                flushMillis = parseAtLeast(args, ++i, 0, "flush interval");
+                continue;
+            }
+            if(args[i].equals("-flush-bytes")){
+                flushBytes = parsePositive(args, ++i, "flush size");
+                continue;
+            }
+            if(args[i].equals("-queue")){
+                queue = parseBetween(args, ++i, 1,
+                        PacketRing.maxCapacity(DecryptPool.SLOT_SIZE),
+                        "queue size");
+                continue;
+            }
+            if(args[i].equals("-sessions")){
+                sessionCount = parsePositive(args, ++i, "session count");
+                continue;
+            }
+            if(args[i].equals("-session-ttl")){
+                sessionTtl = parsePositive(args, ++i, "session ttl");
+                continue;
+            }
+            if(args[i].equals("-dedup")){
+                dedup = parsePositive(args, ++i, "dedup size");
+                continue;
+            }
+            if(args[i].equals("-dedup-ttl")){
+                dedupTtl = parsePositive(args, ++i, "dedup ttl");
+                continue;
+            }
+            if(args[i].equals("-dedup-replay")){
+                dedupReplay = true;
+                continue;
+            }
+            if(args[i].equals("-rate")){
+                rate = parsePositive(args, ++i, "rate");
+                continue;
+            }
+            if(args[i].equals("-burst")){
+                burst = parsePositive(args, ++i, "burst");
+                continue;
+            }
+            if(args[i].equals("-overflow")){
+                try{
+                    overflow = PacketRing.Overflow.valueOf(
+                            args[++i].toUpperCase().replace('-', '_'));
+                } catch (IllegalArgumentException iae){
+                    System.err.printf("'%s' not a valid overflow policy\n",
+                            args[i]);
+                    System.err.println(USAGE);
+                    System.exit(1);
+                } catch (IndexOutOfBoundsException iob){
+                    indexOutOfBounds(iob);
+                }
+                continue;
+            }
+            try{
+                workers = Integer.parseInt(args[i]);
+            } catch (NumberFormatException nfe){
+                workers = 0;
+            }
+            if(workers < 1){
+                System.err.printf("'%s' not a valid worker count\n", args[i]);
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        }
+
+        // an envelope is acked before the filter and the ring see it, so
+        // nothing may drop it after that or it would never be retransmitted
+        if(reliable && (rate > 0 || overflow != PacketRing.Overflow.BLOCK)){
+            System.err.println("-reliable can't be used with -rate or a " +
+                    "dropping overflow policy");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        // Try to open the port, once per lane
+        DatagramSocket[] rsockets = new DatagramSocket[lanes];
+        DatagramChannel[] rchannels = new DatagramChannel[lanes];
         try {
-            rsocket = new DatagramSocket(new InetSocketAddress(rhost,
-                    rport));
-        } catch (SocketException e) {
+            InetSocketAddress address = new InetSocketAddress(rhost, rport);
+            for(int lane = 0; lane < lanes; lane++){
+                if(nio)
+                    rchannels[lane] = openChannel(address, lanes > 1);
+                else
+                    rsockets[lane] = openSocket(address, lanes > 1);
+            }
+        } catch (UnsupportedOperationException e) {
+            System.err.println("SO_REUSEPORT is not supported here, " +
+                    "use one lane");
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IOException e) {
             e.printStackTrace(System.err);
             System.err.printf("Could not bind socket to %s:%d\n", rhost, rport);
             System.err.println(USAGE);
             System.exit(1);
         }
 
-        // open private key file
+        // open private key file, the CRT parameters are optional
         BigInteger exponent = null;
         BigInteger modulus = null;
+        BigInteger[] crt = new BigInteger[CRT_PARAMS];
         try(
                 Scanner s = new Scanner(new File(args[2]))
                 ){
             exponent = new BigInteger(s.nextLine());
             modulus = new BigInteger(s.nextLine());
+            if(s.hasNextLine())
+                for(int i = 0; i < crt.length; i++)
+                    crt[i] = new BigInteger(s.nextLine());
         } catch (FileNotFoundException e) {
             e.printStackTrace(System.err);
             System.err.printf("Could not open file '%s'\n", args[2]);
             System.err.println(USAGE);
             System.exit(1);
-        } catch (NumberFormatException nfe){
-            nfe.printStackTrace(System.err);
+        } catch (NumberFormatException | NoSuchElementException e){
+            e.printStackTrace(System.err);
             System.err.println("Invalid private key file");
             System.err.println(USAGE);
             System.exit(1);
+        } catch (IndexOutOfBoundsException iob){
+            indexOutOfBounds(iob);
         }
 
-        // init model and proxy
-        LeakerProxy proxy = new LeakerProxy(rsocket);
-        ReporterModel model = new ReporterModel(exponent, modulus);
-        proxy.setListener(model);
+        // check the key once, then give every worker its own model
+        try{
+            new ReporterModel(exponent, modulus,
+                    crt[0], crt[1], crt[2], crt[3], crt[4]);
+        } catch (IllegalArgumentException iae){
+            iae.printStackTrace(System.err);
+            System.err.println("Invalid private key file");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        final BigInteger d = exponent;
+        final BigInteger n = modulus;
+        ReplayCache replays = dedup == 0 ? null
+                : new ReplayCache(dedup, dedupTtl * 1000L, dedupReplay);
+        SessionTable sessions = new SessionTable(sessionCount,
+                sessionTtl * 1000L);
+        AckTracker acks = reliable ? new AckTracker() : null;
+
+        // the workers only queue messages, one thread writes them in batches
+        OutputSink sink = null;
+        try{
+            sink = new OutputSink(output == null
+                    ? new FileOutputStream(FileDescriptor.out)
+                    : new FileOutputStream(output, true),
+                    OutputSink.CAPACITY, flushMillis, flushBytes);
+        } catch (FileNotFoundException e){
+            System.err.printf("Could not open file '%s'\n", output);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        final OutputSink out = sink;
+
+        // every message is journaled before it is printed
+        Journal journal = null;
+        if(journalDirectory != null){
+            try{
+                journal = new Journal(Paths.get(journalDirectory),
+                        journalSync);
+            } catch (IOException e){
+                System.err.printf("Could not open journal '%s': %s\n",
+                        journalDirectory, e);
+                System.err.println(USAGE);
+                System.exit(1);
+            }
+        }
+        final Journal log = journal;
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            try{
+                if(log != null)
+                    log.close();
+                out.close();
+            } catch (InterruptedException e){
+                Thread.currentThread().interrupt();
+            }
+        }, "Reporter-close"));
+        ReporterStats.register();
+        ReporterStats.register(sessions);
+        ReporterStats.register(sink);
+        if(journal != null)
+            ReporterStats.register(journal);
+
+        // each lane gets its share of the workers, at least one, and its own
+        // ring, filter and proxy. The key, replay cache, sessions and acks
+        // are shared
+        for(int lane = 0; lane < lanes; lane++){
+            PacketRing ring = new PacketRing(queue, DecryptPool.SLOT_SIZE,
+                    overflow);
+            int share = workers / lanes + (lane < workers % lanes ? 1 : 0);
+            DecryptPool pool = new DecryptPool(Math.max(1, share), () -> {
+                ReporterModel model = new ReporterModel(d, n, crt[0], crt[1],
+                        crt[2], crt[3], crt[4]);
+                model.setReplayCache(replays);
+                model.setSessionTable(sessions);
+                model.setOutputSink(out);
+                model.setJournal(log);
+                return model;
+            }, ring, lanes == 1 ? "DecryptPool" : "DecryptPool-lane" + lane);
+            // drop what can't be a ciphertext before it reaches the ring
+            AdmissionFilter filter = new AdmissionFilter(n, pool, rate,
+                    burst == 0 ? Math.max(rate, 1) : burst);
+
+            // init proxy, with its stats published over JMX, acking reliable
+            // senders if they are accepted
+            if(lanes == 1)
+                ReporterStats.register(ring);
+            else
+                ReporterStats.register(ring, lane);
+            if(nio){
+                LeakerChannelProxy proxy =
+                        new LeakerChannelProxy(rchannels[lane]);
+                proxy.setKeyId(Framed.keyId(n));
+                proxy.setAckTracker(acks);
+                proxy.setBytesListener(filter);
+            } else {
+                LeakerProxy proxy = new LeakerProxy(rsockets[lane]);
+                proxy.setKeyId(Framed.keyId(n));
+                proxy.setAckTracker(acks);
+                proxy.setBytesListener(filter);
+            }
+        }
+    }
+
+    /**
+     * Open a socket bound to the address
+     *
+     * @param address the address to bind to
+     * @param reusePort whether other sockets may bind to it too
+     * @return the socket
+     * @throws IOException if it can't be bound
+     * @throws UnsupportedOperationException if SO_REUSEPORT isn't supported
+     */
+    private static DatagramSocket openSocket(InetSocketAddress address,
+                                             boolean reusePort)
+            throws IOException {
+        DatagramSocket socket = new DatagramSocket(null);
+        if(reusePort)
+            socket.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        socket.bind(address);
+        return socket;
+    }
+
+    /**
+     * Open a channel bound to the address
+     *
+     * @param address the address to bind to
+     * @param reusePort whether other channels may bind to it too
+     * @return the channel
+     * @throws IOException if it can't be bound
+     * @throws UnsupportedOperationException if SO_REUSEPORT isn't supported
+     */
+    private static DatagramChannel openChannel(InetSocketAddress address,
+                                               boolean reusePort)
+            throws IOException {
+        DatagramChannel channel = DatagramChannel.open();
+        if(reusePort)
+            channel.setOption(StandardSocketOptions.SO_REUSEPORT, true);
+        return channel.bind(address);
     }
 
     /**
@@ -126,6 +428,63 @@ public class Reporter {
         return plainText;
     }
 
+    /**
+     * Parse the option value at the given index as a positive int, and exit
+     * with the usage message if it isn't one
+     *
+     * @param args the command line args
+     * @param index the index of the value
+     * @param what what the value is, for the error message
+     * @return the value
+     */
+    private static int parsePositive(String[] args, int index, String what){
+        return parseAtLeast(args, index, 1, what);
+    }
+
+    /**
+     * Parse the option value at the given index as an int no less than min,
+     * and exit with the usage message if it isn't one
+     *
+     * @param args the command line args
+     * @param index the index of the value
+     * @param min the smallest value allowed
+     * @param what what the value is, for the error message
+     * @return the value
+     */
+    private static int parseAtLeast(String[] args, int index, int min,
+                                    String what){
+        return parseBetween(args, index, min, Integer.MAX_VALUE, what);
+    }
+
+    /**
+     * Parse the option value at the given index as an int from min to max,
+     * and exit with the usage message if it isn't one
+     *
+     * @param args the command line args
+     * @param index the index of the value
+     * @param min the smallest value allowed
+     * @param max the largest value allowed
+     * @param what what the value is, for the error message
+     * @return the value
+     */
+    private static int parseBetween(String[] args, int index, int min,
+                                    int max, String what){
+        int value = min - 1;
+        try{
+            value = Integer.parseInt(args[index]);
+        } catch (NumberFormatException nfe){
+            value = min - 1;
+        } catch (IndexOutOfBoundsException iob){
+            indexOutOfBounds(iob);
+        }
+        if(value < min || value > max){
+            System.err.printf("'%s' not a valid %s\n", args[index], what);
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        return value;
+    }
+
     /**
      * Reports an index out of bounds exception
      *
@@ -12,15 +12,19 @@ import java.math.BigInteger;
 import java.net.DatagramPacket;
 import java.net.DatagramSocket;
 import java.net.InetSocketAddress;
+import java.net.SocketAddress;
 
 /**
  * The ReporterProxy is what wraps up the BigInteger nicely into a UDP packet
- * and sends it off to the destination
+ * and sends it off to the destination. With framing on, BigIntegers are
+ * instead gathered into {@link Framed} datagrams, sent when full or on flush.
+ * Raw bytes are always sent as they are, after any frame being filled. In
+ * reliable mode every datagram goes through a {@link ReliableSender}
  *
  * @author Chris Tremblay (cst1465)
  * @version 4/28/2021
  */
-public class ReporterProxy implements LeakerListener {
+public class ReporterProxy implements LeakerListener, LeakerBytesListener {
 
     /** The socket to send through */
     private final DatagramSocket socket;
@@ -28,6 +32,24 @@ public class ReporterProxy implements LeakerListener {
     /** The destination to send to */
     private final InetSocketAddress destination;
 
+    /** The frame being filled, null if framing is off */
+    private byte[] frame;
+
+    /** The key id written into each frame */
+    private int keyId;
+
+    /** The number of slots to fill before sending a frame */
+    private int slots;
+
+    /** The number of slots filled so far */
+    private int count;
+
+    /** The sequence number of the next frame */
+    private int sequence;
+
+    /** Sends and retransmits in reliable mode, null otherwise */
+    private ReliableSender reliable;
+
     /**
      * Create a new ReporterProxy
      *
@@ -39,16 +61,124 @@ public class ReporterProxy implements LeakerListener {
         this.destination = destination;
     }
 
+    /**
+     * Gather ciphertexts into framed datagrams of the given number of slots
+     *
+     * @param modulus the modulus the ciphertexts are encrypted for
+     * @param slots the ciphertexts per datagram, from 1 up to
+     *              Framed.MAX_SLOTS, or 0 to turn framing off
+     * @throws IllegalArgumentException if slots is out of range, or the
+     *                                  modulus is too big for a slot
+     */
+    public synchronized void setFraming(BigInteger modulus, int slots){
+        if(slots < 0 || slots > Framed.MAX_SLOTS)
+            throw new IllegalArgumentException("slots must be from 0 to "
+                    + Framed.MAX_SLOTS);
+        if(modulus.bitLength() > Framed.SLOT * 8)
+            throw new IllegalArgumentException("modulus too big to frame");
+        flush();
+        this.frame = slots == 0 ? null : new byte[Framed.MAX_FRAME];
+        this.keyId = Framed.keyId(modulus);
+        this.slots = slots;
+    }
+
+    /**
+     * Deliver every datagram reliably, with up to the given number waiting
+     * for an ack at once. Acks are read from this proxy's socket
+     *
+     * @param window the most datagrams in flight, from 1 up to
+     *               Reliable.MAX_WINDOW
+     * @throws IllegalArgumentException if the window is out of range
+     */
+    public synchronized void setReliable(int window){
+        this.reliable = new ReliableSender(socket, destination, window);
+    }
+
+    /**
+     * @return the reliable sender, or null if not in reliable mode
+     */
+    public synchronized ReliableSender getReliable(){
+        return reliable;
+    }
+
+    /**
+     * Send anything held back and, in reliable mode, wait until every
+     * datagram has been acked or given up on
+     *
+     * @throws InterruptedException if interrupted waiting
+     */
+    public void drain() throws InterruptedException {
+        ReliableSender sender;
+        synchronized (this){
+            flush();
+            sender = reliable;
+        }
+        if(sender != null)
+            sender.drain();
+    }
+
     /**
      * Send a message from a Leaker to a Reporter
      * @param bi the encoded, then RSA encrypted BigInteger
      */
     @Override
-    public void report(BigInteger bi) {
-        byte[] buffer = bi.toByteArray();
+    public synchronized void report(BigInteger bi) {
+        if(frame == null){
+            byte[] buffer = bi.toByteArray();
+            send(buffer, 0, buffer.length);
+            return;
+        }
+        Framed.putSlot(bi, frame, count++);
+        if(count == slots)
+            flush();
+    }
+
+    /**
+     * Send the frame being filled, if it holds anything
+     */
+    @Override
+    public synchronized void flush() {
+        if(count == 0)
+            return;
+        Framed.putHeader(frame, keyId, sequence++, count);
+        send(frame, 0, Framed.HEADER + count * Framed.SLOT);
+        count = 0;
+    }
+
+    /**
+     * Send an already encrypted message from a Leaker to a Reporter, straight
+     * from the given buffer
+     *
+     * @param source ignored, packets always come from this proxy's socket
+     * @param buf the buffer holding the message
+     * @param off where the message starts in the buffer
+     * @param len the length of the message
+     */
+    @Override
+    public synchronized void report(SocketAddress source, byte[] buf, int off,
+                                    int len) {
+        flush();
+        send(buf, off, len);
+    }
+
+    /**
+     * Send one datagram
+     *
+     * @param buf the buffer holding the datagram
+     * @param off where the datagram starts in the buffer
+     * @param len the length of the datagram
+     */
+    private void send(byte[] buf, int off, int len) {
+        if(reliable != null){
+            try{
+                reliable.send(buf, off, len);
+            } catch (InterruptedException ie){
+                Thread.currentThread().interrupt();
+            }
+            return;
+        }
         try{
-            DatagramPacket dp = new DatagramPacket(buffer, 0,
-                    buffer.length, destination);
+            DatagramPacket dp = new DatagramPacket(buf, off, len, destination);
             socket.send(dp);
         } catch (IOException ioException) {
             ioException.printStackTrace();
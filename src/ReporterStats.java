@@ -0,0 +1,469 @@
+/*
+ * @filename ReporterStats.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Counters and latency histograms for the Reporter, published over JMX
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * ReporterStats counts what happens to packets on their way through the
+ * Reporter: what was received, what was delivered, and why decryption failed.
+ * It also keeps histograms of how long packets wait between being received
+ * and being decrypted, and of the modPow and OAEP decode times. All the
+ * counters are LongAdders so the receive and decrypt threads never contend on
+ * a lock. There is one set of stats per process, shared by every proxy and
+ * model, and register() publishes it to the platform MBean server
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class ReporterStats implements ReporterStatsMBean {
+
+    /** The JMX domain */
+    private static final String DOMAIN = "ReporterLeaker";
+
+    /** The stats for this process */
+    private static final ReporterStats STATS = new ReporterStats();
+
+    /** Packets received */
+    private final LongAdder packetsReceived = new LongAdder();
+
+    /** Payload bytes received */
+    private final LongAdder bytesReceived = new LongAdder();
+
+    /** Errors receiving packets */
+    private final LongAdder receiveErrors = new LongAdder();
+
+    /** Packets a worker failed on with an unexpected exception */
+    private final LongAdder workerErrors = new LongAdder();
+
+    /** Messages delivered */
+    private final LongAdder messagesDelivered = new LongAdder();
+
+    /** Packets that were not a valid BigInteger */
+    private final LongAdder numberFormatFailures = new LongAdder();
+
+    /** Decrypted values too big to be OAEP encoded */
+    private final LongAdder tooBigFailures = new LongAdder();
+
+    /** OAEP blocks whose first byte was not 0 */
+    private final LongAdder firstByteFailures = new LongAdder();
+
+    /** OAEP blocks with the wrong label hash */
+    private final LongAdder lHashFailures = new LongAdder();
+
+    /** OAEP blocks with bad padding */
+    private final LongAdder paddingFailures = new LongAdder();
+
+    /** Decrypt failures with any other cause */
+    private final LongAdder otherFailures = new LongAdder();
+
+    /** Packets rejected for being empty or longer than the modulus */
+    private final LongAdder lengthRejections = new LongAdder();
+
+    /** Packets rejected for being negative or not less than the modulus */
+    private final LongAdder rangeRejections = new LongAdder();
+
+    /** Packets rejected because their source was over its rate */
+    private final LongAdder rateRejections = new LongAdder();
+
+    /** Framed datagrams rejected as malformed or for another key */
+    private final LongAdder frameRejections = new LongAdder();
+
+    /** Acks sent to reliable senders */
+    private final LongAdder acksSent = new LongAdder();
+
+    /** Reliable datagrams dropped for having been received already */
+    private final LongAdder retransmitsDropped = new LongAdder();
+
+    /** Duplicate ciphertexts dropped without decrypting */
+    private final LongAdder duplicatesDropped = new LongAdder();
+
+    /** Duplicate ciphertexts reported again from the replay cache */
+    private final LongAdder duplicatesReplayed = new LongAdder();
+
+    /** Hybrid message chunks that were malformed or didn't authenticate */
+    private final LongAdder chunkFailures = new LongAdder();
+
+    /** Time between a packet being received and a worker picking it up */
+    private final LatencyHistogram receiveToDecrypt = new LatencyHistogram();
+
+    /** Time spent in the private key modPow */
+    private final LatencyHistogram modPow = new LatencyHistogram();
+
+    /** Time spent in OAEP decode */
+    private final LatencyHistogram decode = new LatencyHistogram();
+
+    /**
+     * Only one set of stats per process
+     */
+    private ReporterStats(){}
+
+    /**
+     * Get the stats for this process
+     *
+     * @return the stats
+     */
+    public static ReporterStats get(){
+        return STATS;
+    }
+
+    /**
+     * Publish the stats and histograms to the platform MBean server. Failing
+     * to do so is reported, but is not fatal
+     */
+    public static void register(){
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try{
+            server.registerMBean(STATS, new ObjectName(DOMAIN +
+                    ":type=ReporterStats"));
+            server.registerMBean(STATS.receiveToDecrypt, new ObjectName(
+                    DOMAIN + ":type=Latency,name=receiveToDecrypt"));
+            server.registerMBean(STATS.modPow, new ObjectName(DOMAIN +
+                    ":type=Latency,name=modPow"));
+            server.registerMBean(STATS.decode, new ObjectName(DOMAIN +
+                    ":type=Latency,name=decode"));
+        } catch (JMException e){
+            e.printStackTrace(System.err);
+            System.err.println("Could not register ReporterStats MBeans");
+        }
+    }
+
+    /**
+     * Publish a decrypt pool's ring to the platform MBean server
+     *
+     * @param ring the ring
+     */
+    public static void register(PacketRing ring){
+        try{
+            ManagementFactory.getPlatformMBeanServer().registerMBean(ring,
+                    new ObjectName(DOMAIN + ":type=PacketRing"));
+        } catch (JMException e){
+            e.printStackTrace(System.err);
+            System.err.println("Could not register PacketRing MBean");
+        }
+    }
+
+    /**
+     * Publish one lane's ring to the platform MBean server
+     *
+     * @param ring the ring
+     * @param lane the lane's number
+     */
+    public static void register(PacketRing ring, int lane){
+        try{
+            ManagementFactory.getPlatformMBeanServer().registerMBean(ring,
+                    new ObjectName(DOMAIN + ":type=PacketRing,lane=" + lane));
+        } catch (JMException e){
+            e.printStackTrace(System.err);
+            System.err.println("Could not register PacketRing MBean");
+        }
+    }
+
+    /**
+     * Publish the hybrid session table to the platform MBean server
+     *
+     * @param sessions the table
+     */
+    public static void register(SessionTable sessions){
+        try{
+            ManagementFactory.getPlatformMBeanServer().registerMBean(sessions,
+                    new ObjectName(DOMAIN + ":type=SessionTable"));
+        } catch (JMException e){
+            e.printStackTrace(System.err);
+            System.err.println("Could not register SessionTable MBean");
+        }
+    }
+
+    /**
+     * Publish the output sink to the platform MBean server
+     *
+     * @param sink the sink
+     */
+    public static void register(OutputSink sink){
+        try{
+            ManagementFactory.getPlatformMBeanServer().registerMBean(sink,
+                    new ObjectName(DOMAIN + ":type=OutputSink"));
+        } catch (JMException e){
+            e.printStackTrace(System.err);
+            System.err.println("Could not register OutputSink MBean");
+        }
+    }
+
+    /**
+     * Publish the journal to the platform MBean server
+     *
+     * @param journal the journal
+     */
+    public static void register(Journal journal){
+        try{
+            ManagementFactory.getPlatformMBeanServer().registerMBean(journal,
+                    new ObjectName(DOMAIN + ":type=Journal"));
+        } catch (JMException e){
+            e.printStackTrace(System.err);
+            System.err.println("Could not register Journal MBean");
+        }
+    }
+
+    /**
+     * Count a received packet
+     *
+     * @param length the length of its payload
+     */
+    public void packetReceived(int length){
+        packetsReceived.increment();
+        bytesReceived.add(length);
+    }
+
+    /**
+     * Count an error receiving a packet
+     */
+    public void receiveError(){
+        receiveErrors.increment();
+    }
+
+    /**
+     * Count a packet a worker failed on with an unexpected exception
+     */
+    public void workerError(){
+        workerErrors.increment();
+    }
+
+    /**
+     * Count a delivered message
+     */
+    public void messageDelivered(){
+        messagesDelivered.increment();
+    }
+
+    /**
+     * Count a packet that was not a valid BigInteger
+     */
+    public void numberFormatFailure(){
+        numberFormatFailures.increment();
+    }
+
+    /**
+     * Count a packet rejected for its length, or for a type the receiver
+     * wasn't set up to take, before decryption
+     */
+    public void lengthRejected(){
+        lengthRejections.increment();
+    }
+
+    /**
+     * Count a packet rejected for its value before decryption
+     */
+    public void rangeRejected(){
+        rangeRejections.increment();
+    }
+
+    /**
+     * Count a packet rejected because its source was over its rate
+     */
+    public void rateRejected(){
+        rateRejections.increment();
+    }
+
+    /**
+     * Count a framed datagram rejected as malformed or for another key
+     */
+    public void frameRejected(){
+        frameRejections.increment();
+    }
+
+    /**
+     * Count an ack sent to a reliable sender
+     */
+    public void ackSent(){
+        acksSent.increment();
+    }
+
+    /**
+     * Count a reliable datagram dropped for having been received already
+     */
+    public void retransmitDropped(){
+        retransmitsDropped.increment();
+    }
+
+    /**
+     * Count a duplicate ciphertext found in the replay cache
+     *
+     * @param replayed true if its plaintext was reported again, false if it
+     *                 was dropped
+     */
+    public void duplicate(boolean replayed){
+        if(replayed)
+            duplicatesReplayed.increment();
+        else
+            duplicatesDropped.increment();
+    }
+
+    /**
+     * Count a hybrid message chunk that was malformed or didn't authenticate
+     */
+    public void chunkFailure(){
+        chunkFailures.increment();
+    }
+
+    /**
+     * Count an OAEP decode failure, sorted by the reason OAEP gave
+     *
+     * @param e what OAEP threw
+     */
+    public void decodeFailure(Exception e){
+        String message = e.getMessage() == null ? "" : e.getMessage();
+        if(message.contains("too big"))
+            tooBigFailures.increment();
+        else if(message.contains("First byte"))
+            firstByteFailures.increment();
+        else if(message.contains("lHash"))
+            lHashFailures.increment();
+        else if(message.contains("Padding"))
+            paddingFailures.increment();
+        else
+            otherFailures.increment();
+    }
+
+    /**
+     * @return the histogram of time between receiving and decrypting
+     */
+    public LatencyHistogram receiveToDecrypt(){
+        return receiveToDecrypt;
+    }
+
+    /**
+     * @return the histogram of modPow times
+     */
+    public LatencyHistogram modPow(){
+        return modPow;
+    }
+
+    /**
+     * @return the histogram of OAEP decode times
+     */
+    public LatencyHistogram decode(){
+        return decode;
+    }
+
+    @Override
+    public long getPacketsReceived(){
+        return packetsReceived.sum();
+    }
+
+    @Override
+    public long getBytesReceived(){
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getReceiveErrors(){
+        return receiveErrors.sum();
+    }
+
+    @Override
+    public long getWorkerErrors(){
+        return workerErrors.sum();
+    }
+
+    @Override
+    public long getMessagesDelivered(){
+        return messagesDelivered.sum();
+    }
+
+    @Override
+    public long getNumberFormatFailures(){
+        return numberFormatFailures.sum();
+    }
+
+    @Override
+    public long getTooBigFailures(){
+        return tooBigFailures.sum();
+    }
+
+    @Override
+    public long getFirstByteFailures(){
+        return firstByteFailures.sum();
+    }
+
+    @Override
+    public long getLHashFailures(){
+        return lHashFailures.sum();
+    }
+
+    @Override
+    public long getPaddingFailures(){
+        return paddingFailures.sum();
+    }
+
+    @Override
+    public long getOtherFailures(){
+        return otherFailures.sum();
+    }
+
+    @Override
+    public long getDecryptFailures(){
+        return getNumberFormatFailures() + getTooBigFailures() +
+                getFirstByteFailures() + getLHashFailures() +
+                getPaddingFailures() + getOtherFailures();
+    }
+
+    @Override
+    public long getLengthRejections(){
+        return lengthRejections.sum();
+    }
+
+    @Override
+    public long getRangeRejections(){
+        return rangeRejections.sum();
+    }
+
+    @Override
+    public long getRateRejections(){
+        return rateRejections.sum();
+    }
+
+    @Override
+    public long getFrameRejections(){
+        return frameRejections.sum();
+    }
+
+    @Override
+    public long getAcksSent(){
+        return acksSent.sum();
+    }
+
+    @Override
+    public long getRetransmitsDropped(){
+        return retransmitsDropped.sum();
+    }
+
+    @Override
+    public long getRejections(){
+        return lengthRejections.sum() + rangeRejections.sum()
+                + rateRejections.sum() + frameRejections.sum();
+    }
+
+    @Override
+    public long getDuplicatesDropped(){
+        return duplicatesDropped.sum();
+    }
+
+    @Override
+    public long getDuplicatesReplayed(){
+        return duplicatesReplayed.sum();
+    }
+
+    @Override
+    public long getChunkFailures(){
+        return chunkFailures.sum();
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * @filename ReporterStatsMBean.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The JMX view of the Reporter's counters
+ */
+
+/**
+ * What JMX can read from the {@link ReporterStats}
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public interface ReporterStatsMBean {
+
+    /**
+     * @return the number of packets received
+     */
+    long getPacketsReceived();
+
+    /**
+     * @return the number of payload bytes received
+     */
+    long getBytesReceived();
+
+    /**
+     * @return the number of errors receiving packets
+     */
+    long getReceiveErrors();
+
+    /**
+     * @return the number of packets a worker failed on with an unexpected
+     * exception
+     */
+    long getWorkerErrors();
+
+    /**
+     * @return the number of messages decrypted and delivered
+     */
+    long getMessagesDelivered();
+
+    /**
+     * @return packets that were not a valid BigInteger
+     */
+    long getNumberFormatFailures();
+
+    /**
+     * @return decrypted values too big to be OAEP encoded
+     */
+    long getTooBigFailures();
+
+    /**
+     * @return OAEP blocks whose first byte was not 0
+     */
+    long getFirstByteFailures();
+
+    /**
+     * @return OAEP blocks with the wrong label hash
+     */
+    long getLHashFailures();
+
+    /**
+     * @return OAEP blocks with bad padding
+     */
+    long getPaddingFailures();
+
+    /**
+     * @return decrypt failures with any other cause
+     */
+    long getOtherFailures();
+
+    /**
+     * @return the total of all the decrypt failures
+     */
+    long getDecryptFailures();
+
+    /**
+     * @return packets rejected for being empty, longer than the modulus or
+     * the wrong length for their type, or for a type the receiver wasn't set
+     * up to take
+     */
+    long getLengthRejections();
+
+    /**
+     * @return packets rejected for being negative or not less than the modulus
+     */
+    long getRangeRejections();
+
+    /**
+     * @return packets rejected because their source was over its rate
+     */
+    long getRateRejections();
+
+    /**
+     * @return framed datagrams rejected as malformed or for another key
+     */
+    long getFrameRejections();
+
+    /**
+     * @return acks sent to reliable senders
+     */
+    long getAcksSent();
+
+    /**
+     * @return reliable datagrams dropped for having been received already
+     */
+    long getRetransmitsDropped();
+
+    /**
+     * @return the total of all the rejected packets
+     */
+    long getRejections();
+
+    /**
+     * @return duplicate ciphertexts dropped without decrypting
+     */
+    long getDuplicatesDropped();
+
+    /**
+     * @return duplicate ciphertexts reported again from the replay cache
+     */
+    long getDuplicatesReplayed();
+
+    /**
+     * @return hybrid message chunks that were malformed or didn't authenticate
+     */
+    long getChunkFailures();
+}
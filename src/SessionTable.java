@@ -0,0 +1,677 @@
+/*
+ * @filename SessionTable.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The Reporter's hybrid encryption sessions, by sender
+ */
+
+import java.io.ByteArrayOutputStream;
+import java.net.SocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * The SessionTable holds the {@link Hybrid} sessions the Reporter knows of,
+ * each identified by the sender's address and the session id in its
+ * datagrams. A session's AES key is RSA decrypted once, and every later
+ * message in the session is decrypted at symmetric speed. The table is
+ * bounded: the least recently used session is dropped to make room for a new
+ * one, and a session that has been idle longer than the time to live is
+ * dropped the next time it is looked at.
+ * <P>
+ * The key and data datagrams of a session can be taken by different workers and
+ * in any order, so data that arrives before its key has been decrypted is kept
+ * as it came off the wire until the key is known. Those chunks can't be
+ * authenticated yet, so a session holds at most {@link #EARLY_CHUNKS} of them
+ * and the whole table at most {@link #EARLY_BYTES}, and any more are dropped
+ * and counted, to be retransmitted or lost. The chunks of unfinished messages,
+ * with or without a key, are held within {@link #SESSION_BYTES} a session and
+ * {@link #PENDING_BYTES} in all, so a sender that withholds the last chunk of
+ * every message can't fill the heap either. Each session also remembers the
+ * last {@link #WINDOW} message numbers it finished, so a retransmitted chunk
+ * can't deliver a message twice. A finished message is delivered with the
+ * digest of its last chunk to arrive, whichever datagram finishes it. A
+ * SessionTable is thread safe and shared by all of the {@link DecryptPool}'s
+ * workers, who each pass in their own Cipher
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class SessionTable implements SessionTableMBean {
+
+    /** The default number of sessions */
+    public static final int CAPACITY = 1024;
+
+    /** The default time to live of an idle session, in seconds */
+    public static final int TTL_SECONDS = 600;
+
+    /** How many message numbers back a session remembers finishing. A
+     * worker that is descheduled can be overtaken by as many packets as the
+     * ring holds, so this is the default ring size */
+    public static final int WINDOW = DecryptPool.RING_SIZE;
+
+    /** The most unfinished messages a session holds, the oldest go first */
+    public static final int MAX_PENDING = 64;
+
+    /** The most chunks a session holds before its key is known */
+    public static final int EARLY_CHUNKS = 64;
+
+    /** The most bytes all the sessions hold before their keys are known */
+    public static final long EARLY_BYTES = 16L << 20;
+
+    /** The most bytes of unfinished messages a session holds, room for a
+     * couple of the longest */
+    public static final long SESSION_BYTES = 4L << 20;
+
+    /** The most bytes of unfinished messages all the sessions hold */
+    public static final long PENDING_BYTES = 64L << 20;
+
+    /** The most sessions to keep */
+    private final int capacity;
+
+    /** How long a session may be idle, in nanoseconds */
+    private final long ttl;
+
+    /** The sessions, least recently used first */
+    private final Map<Id, Session> sessions;
+
+    /** Sessions dropped to make room */
+    private final LongAdder evicted = new LongAdder();
+
+    /** Sessions dropped for being idle */
+    private final LongAdder expired = new LongAdder();
+
+    /** Bytes held by all the sessions before their keys are known */
+    private final AtomicLong earlyBytes = new AtomicLong();
+
+    /** Chunks dropped for arriving before their key with no room to hold
+     * them */
+    private final LongAdder earlyDropped = new LongAdder();
+
+    /** Bytes held by all the sessions' unfinished messages */
+    private final AtomicLong pendingBytes = new AtomicLong();
+
+    /** Chunks dropped for there being no room to hold their message */
+    private final LongAdder pendingDropped = new LongAdder();
+
+    /** Where failed chunks are counted */
+    private final ReporterStats stats = ReporterStats.get();
+
+    /**
+     * Create a new SessionTable with the default capacity and time to live
+     */
+    public SessionTable(){
+        this(CAPACITY, TTL_SECONDS * 1000L);
+    }
+
+    /**
+     * Create a new SessionTable
+     *
+     * @param capacity the most sessions to keep
+     * @param ttlMillis how long a session may be idle, in milliseconds
+     * @throws IllegalArgumentException if capacity or ttlMillis is less
+     *                                  than 1
+     */
+    public SessionTable(int capacity, long ttlMillis){
+        if(capacity < 1)
+            throw new IllegalArgumentException("capacity must be at least 1");
+        if(ttlMillis < 1)
+            throw new IllegalArgumentException("ttl must be at least 1");
+        this.capacity = capacity;
+        this.ttl = ttlMillis * 1_000_000L;
+        this.sessions = new LinkedHashMap<>(16, 0.75f, true){
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Id, Session> eldest){
+                if(size() > SessionTable.this.capacity){
+                    evicted.increment();
+                    release(eldest.getValue());
+                    return true;
+                }
+                if(System.nanoTime() - eldest.getValue().used >= ttl){
+                    expired.increment();
+                    release(eldest.getValue());
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Check whether a session still needs its key, so a repeated key datagram
+     * doesn't cost another RSA decryption
+     *
+     * @param source the sender's address
+     * @param id the session id
+     * @return true if its key hasn't been decrypted yet
+     */
+    public boolean needsKey(SocketAddress source, long id){
+        Session session;
+        synchronized (sessions){
+            session = live(new Id(source, id), System.nanoTime());
+        }
+        if(session == null)
+            return true;
+        synchronized (session){
+            return session.key == null;
+        }
+    }
+
+    /**
+     * Give a session its key, and decrypt whatever data came before it
+     *
+     * @param source the sender's address
+     * @param id the session id
+     * @param key the decrypted AES key
+     * @param cipher the calling worker's AES-GCM cipher
+     * @param deliver gets each message this finishes
+     */
+    public void key(SocketAddress source, long id, byte[] key, Cipher cipher,
+                    Delivery deliver){
+        Session session = session(new Id(source, id));
+        synchronized (session){
+            if(session.key != null)
+                return;
+            session.key = new SecretKeySpec(key, "AES");
+            for(Map.Entry<Long, Message> entry : session.pending.entrySet()){
+                Message message = entry.getValue();
+                for(int i = 0; i < message.parts.length; i++){
+                    if(message.parts[i] == null || message.opened[i])
+                        continue;
+                    int len = message.parts[i].length;
+                    open(session, message, i, message.parts[i], 0, len,
+                            cipher);
+                    if(!message.opened[i])
+                        unholdPending(session, message, len);
+                }
+            }
+            // every early chunk is now decrypted or dropped
+            earlyBytes.addAndGet(-session.earlyBytes);
+            session.earlyBytes = 0;
+            session.earlyChunks = 0;
+            session.pending.entrySet().removeIf(entry ->
+                    finish(session, source, entry.getKey(),
+                            entry.getValue(), deliver));
+        }
+    }
+
+    /**
+     * Add a data datagram to its session, decrypting it if the key is known
+     *
+     * @param source the sender's address
+     * @param buf the buffer holding the datagram
+     * @param off where the datagram starts
+     * @param len the length of the datagram
+     * @param hi the first 64 bits of the datagram's digest
+     * @param lo the next 64 bits of the datagram's digest
+     * @param cipher the calling worker's AES-GCM cipher
+     * @param deliver gets the message if this finishes it
+     */
+    public void data(SocketAddress source, byte[] buf, int off, int len,
+                     long hi, long lo, Cipher cipher, Delivery deliver){
+        long id = Hybrid.getLong(buf, off + 1);
+        long number = Hybrid.getInt(buf, off + 9) & 0xffffffffL;
+        int chunk = Hybrid.getShort(buf, off + 13);
+        int chunks = Hybrid.getShort(buf, off + 15);
+        if(chunks < 1 || chunks > Hybrid.MAX_CHUNKS || chunk >= chunks){
+            stats.chunkFailure();
+            return;
+        }
+        Session session = session(new Id(source, id));
+        synchronized (session){
+            if(session.finished(number))
+                return;
+            if(session.key == null && !holdEarly(session, len)){
+                earlyDropped.increment();
+                return;
+            }
+            Message message = session.pending.computeIfAbsent(number,
+                    k -> new Message(chunks));
+            if(message.parts.length != chunks || message.parts[chunk] != null
+                    || !holdPending(session, message, len)){
+                if(session.key == null)
+                    unholdEarly(session, len);
+                if(message.parts.length != chunks)
+                    stats.chunkFailure();
+                else if(message.parts[chunk] == null)
+                    pendingDropped.increment();
+                if(message.bytes == 0)
+                    session.pending.remove(number);
+                return;
+            }
+            message.hi = hi;
+            message.lo = lo;
+            if(session.key == null)
+                message.parts[chunk] = Arrays.copyOfRange(buf, off,
+                        off + len);
+            else{
+                open(session, message, chunk, buf, off, len, cipher);
+                if(!message.opened[chunk])
+                    unholdPending(session, message, len);
+            }
+            if(finish(session, source, number, message, deliver))
+                session.pending.remove(number);
+        }
+    }
+
+    @Override
+    public int getCapacity(){
+        return capacity;
+    }
+
+    @Override
+    public int getSessions(){
+        synchronized (sessions){
+            return sessions.size();
+        }
+    }
+
+    @Override
+    public long getTtlSeconds(){
+        return ttl / 1_000_000_000L;
+    }
+
+    @Override
+    public long getEvicted(){
+        return evicted.sum();
+    }
+
+    @Override
+    public long getExpired(){
+        return expired.sum();
+    }
+
+    @Override
+    public long getEarlyBytes(){
+        return earlyBytes.get();
+    }
+
+    @Override
+    public long getEarlyDropped(){
+        return earlyDropped.sum();
+    }
+
+    @Override
+    public long getPendingBytes(){
+        return pendingBytes.get();
+    }
+
+    @Override
+    public long getPendingDropped(){
+        return pendingDropped.sum();
+    }
+
+    /**
+     * Make room for a chunk that arrived before its session's key, if the
+     * session and the table are under their limits
+     *
+     * @param session the session, locked by the caller
+     * @param len the length of the chunk
+     * @return true if it can be held
+     */
+    private boolean holdEarly(Session session, int len){
+        if(session.released || session.earlyChunks >= EARLY_CHUNKS)
+            return false;
+        if(earlyBytes.addAndGet(len) > EARLY_BYTES){
+            earlyBytes.addAndGet(-len);
+            return false;
+        }
+        session.earlyChunks++;
+        session.earlyBytes += len;
+        return true;
+    }
+
+    /**
+     * Give back the room made for an early chunk that wasn't held after all
+     *
+     * @param session the session, locked by the caller
+     * @param len the length of the chunk
+     */
+    private void unholdEarly(Session session, int len){
+        session.earlyChunks--;
+        session.earlyBytes -= len;
+        earlyBytes.addAndGet(-len);
+    }
+
+    /**
+     * Make room for a chunk of an unfinished message, if the session and the
+     * table are under their limits
+     *
+     * @param session the session, locked by the caller
+     * @param message the message the chunk belongs to
+     * @param len the length of the chunk
+     * @return true if it can be held
+     */
+    private boolean holdPending(Session session, Message message, int len){
+        if(session.released || session.pendingBytes + len > SESSION_BYTES)
+            return false;
+        if(pendingBytes.addAndGet(len) > PENDING_BYTES){
+            pendingBytes.addAndGet(-len);
+            return false;
+        }
+        session.pendingBytes += len;
+        message.bytes += len;
+        return true;
+    }
+
+    /**
+     * Give back the room made for chunks of an unfinished message once they
+     * are dropped, or the message is finished or dropped
+     *
+     * @param session the session, locked by the caller
+     * @param message the message the chunks belong to
+     * @param len the length of the chunks
+     */
+    private void unholdPending(Session session, Message message, long len){
+        message.bytes -= len;
+        session.pendingBytes -= len;
+        pendingBytes.addAndGet(-len);
+    }
+
+    /**
+     * Give back the room held by a session's unfinished messages when the
+     * session leaves the table. The caller holds the table's lock, and no
+     * worker holds it while waiting for a session's lock, so this can't
+     * deadlock
+     *
+     * @param session the session
+     */
+    private void release(Session session){
+        synchronized (session){
+            session.released = true;
+            earlyBytes.addAndGet(-session.earlyBytes);
+            session.earlyBytes = 0;
+            session.earlyChunks = 0;
+            pendingBytes.addAndGet(-session.pendingBytes);
+            session.pendingBytes = 0;
+        }
+    }
+
+    /**
+     * Get a session, starting a new one if it isn't in the table or has
+     * expired
+     *
+     * @param id the sender and session id
+     * @return the session
+     */
+    private Session session(Id id){
+        long now = System.nanoTime();
+        synchronized (sessions){
+            Session session = live(id, now);
+            if(session == null){
+                session = new Session(this);
+                session.used = now;
+                sessions.put(id, session);
+            }
+            session.used = now;
+            return session;
+        }
+    }
+
+    /**
+     * Look up a session, dropping it if it has expired. The caller holds the
+     * table's lock
+     *
+     * @param id the sender and session id
+     * @param now the current nanoTime
+     * @return the session, or null if there is no live one
+     */
+    private Session live(Id id, long now){
+        Session session = sessions.get(id);
+        if(session != null && now - session.used >= ttl){
+            sessions.remove(id);
+            expired.increment();
+            release(session);
+            return null;
+        }
+        return session;
+    }
+
+    /**
+     * Decrypt a chunk into its message, or drop it if it doesn't authenticate
+     * so that a retransmit can take its place
+     *
+     * @param session the session, locked by the caller
+     * @param message the message the chunk belongs to
+     * @param chunk the chunk number
+     * @param buf the buffer holding the datagram
+     * @param off where the datagram starts
+     * @param len the length of the datagram
+     * @param cipher the AES-GCM cipher to use
+     */
+    private void open(Session session, Message message, int chunk, byte[] buf,
+                      int off, int len, Cipher cipher){
+        try{
+            message.parts[chunk] = Hybrid.open(cipher, session.key, buf, off,
+                    len);
+            message.opened[chunk] = true;
+            message.done++;
+        } catch (GeneralSecurityException e){
+            message.parts[chunk] = null;
+            stats.chunkFailure();
+        }
+    }
+
+    /**
+     * Deliver a message if all of its chunks are decrypted
+     *
+     * @param session the session, locked by the caller
+     * @param source the sender's address
+     * @param number the message number
+     * @param message the message
+     * @param deliver gets the message if it is finished
+     * @return true if it was finished
+     */
+    private boolean finish(Session session, SocketAddress source, long number,
+                           Message message, Delivery deliver){
+        if(message.done < message.parts.length)
+            return false;
+        session.finish(number);
+        unholdPending(session, message, message.bytes);
+        ByteArrayOutputStream text = new ByteArrayOutputStream();
+        for(byte[] part : message.parts)
+            text.writeBytes(part);
+        deliver.deliver(new String(text.toByteArray(), StandardCharsets.UTF_8),
+                source, message.hi, message.lo);
+        return true;
+    }
+
+    /**
+     * Interface SessionTable.Delivery takes the messages a table finishes,
+     * with where they came from
+     */
+    public interface Delivery {
+
+        /**
+         * Take a finished message
+         *
+         * @param message the message
+         * @param source the sender's address, null if not known
+         * @param hi the first 64 bits of its last chunk's digest
+         * @param lo the next 64 bits of its last chunk's digest
+         */
+        void deliver(String message, SocketAddress source, long hi, long lo);
+    }
+
+    /**
+     * This class is the key of a session in the table, the sender's address
+     * and the session id
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private static final class Id {
+
+        /** The sender's address, null if not known */
+        private final SocketAddress source;
+
+        /** The session id */
+        private final long id;
+
+        /**
+         * Create a new Id
+         *
+         * @param source the sender's address
+         * @param id the session id
+         */
+        Id(SocketAddress source, long id){
+            this.source = source;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object o){
+            if(!(o instanceof Id))
+                return false;
+            Id other = (Id) o;
+            return id == other.id && Objects.equals(source, other.source);
+        }
+
+        @Override
+        public int hashCode(){
+            return Long.hashCode(id) * 31 + Objects.hashCode(source);
+        }
+    }
+
+    /**
+     * This class is one sender's session
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private static class Session {
+
+        /** The AES key, null until the key datagram is decrypted */
+        private SecretKeySpec key;
+
+        /** When the session was last used, in nanoTime */
+        private long used;
+
+        /** The number of chunks held before the key was known */
+        private int earlyChunks;
+
+        /** The bytes held before the key was known */
+        private long earlyBytes;
+
+        /** The bytes held by unfinished messages */
+        private long pendingBytes;
+
+        /** Whether the session has left the table */
+        private boolean released;
+
+        /** The messages being put back together, by number, oldest first */
+        private final Map<Long, Message> pending;
+
+        /**
+         * Create a new Session
+         *
+         * @param table the table holding it, which gets back the room a
+         *              dropped message's chunks held
+         */
+        Session(SessionTable table){
+            this.pending = new LinkedHashMap<>(16, 0.75f, false){
+                @Override
+                protected boolean removeEldestEntry(
+                        Map.Entry<Long, Message> eldest){
+                    if(size() <= MAX_PENDING)
+                        return false;
+                    Message message = eldest.getValue();
+                    if(Session.this.key == null)
+                        for(byte[] part : message.parts)
+                            if(part != null)
+                                table.unholdEarly(Session.this, part.length);
+                    table.unholdPending(Session.this, message, message.bytes);
+                    return true;
+                }
+            };
+        }
+
+        /** The highest message number finished, -1 if none */
+        private long highest = -1;
+
+        /** Bit n % WINDOW is set if message n, within WINDOW of the highest,
+         * is finished */
+        private final long[] window = new long[WINDOW / Long.SIZE];
+
+        /**
+         * Check whether a message was finished, or is too old to tell
+         *
+         * @param number the message number
+         * @return true if it must not be delivered
+         */
+        boolean finished(long number){
+            if(number > highest)
+                return false;
+            if(highest - number >= WINDOW)
+                return true;
+            int bit = (int) (number % WINDOW);
+            return (window[bit / Long.SIZE] & 1L << bit) != 0;
+        }
+
+        /**
+         * Remember that a message was finished
+         *
+         * @param number the message number
+         */
+        void finish(long number){
+            // forget the numbers the window slides past
+            if(number - highest >= WINDOW)
+                Arrays.fill(window, 0);
+            else
+                for(long n = highest + 1; n < number; n++){
+                    int bit = (int) (n % WINDOW);
+                    window[bit / Long.SIZE] &= ~(1L << bit);
+                }
+            highest = Math.max(highest, number);
+            int bit = (int) (number % WINDOW);
+            window[bit / Long.SIZE] |= 1L << bit;
+        }
+    }
+
+    /**
+     * This class is one message being put back together
+     *
+     * @author Chris Tremblay
+     * @version 10/18/2026
+     */
+    private static class Message {
+
+        /** Each chunk, as received until opened and decrypted after */
+        private final byte[][] parts;
+
+        /** Whether each chunk has been decrypted */
+        private final boolean[] opened;
+
+        /** The number of chunks decrypted */
+        private int done;
+
+        /** The bytes its chunks were held for, as they came off the wire */
+        private long bytes;
+
+        /** The first 64 bits of the digest of the last chunk received */
+        private long hi;
+
+        /** The next 64 bits of the digest of the last chunk received */
+        private long lo;
+
+        /**
+         * Create a new Message
+         *
+         * @param chunks the number of chunks in it
+         */
+        Message(int chunks){
+            this.parts = new byte[chunks][];
+            this.opened = new boolean[chunks];
+        }
+    }
+}
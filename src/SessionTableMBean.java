@@ -0,0 +1,65 @@
+/*
+ * @filename SessionTableMBean.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  The JMX view of a SessionTable
+ */
+
+/**
+ * What JMX can read from a {@link SessionTable}
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public interface SessionTableMBean {
+
+    /**
+     * @return the most sessions kept
+     */
+    int getCapacity();
+
+    /**
+     * @return the number of sessions in the table
+     */
+    int getSessions();
+
+    /**
+     * @return how long a session may be idle, in seconds
+     */
+    long getTtlSeconds();
+
+    /**
+     * @return sessions dropped to make room for new ones
+     */
+    long getEvicted();
+
+    /**
+     * @return sessions dropped for being idle too long
+     */
+    long getExpired();
+
+    /**
+     * @return the bytes of the chunks held because they arrived before their
+     * session's key
+     */
+    long getEarlyBytes();
+
+    /**
+     * @return chunks dropped for arriving before their session's key with no
+     * room left to hold them
+     */
+    long getEarlyDropped();
+
+    /**
+     * @return the bytes of the chunks held for unfinished messages
+     */
+    long getPendingBytes();
+
+    /**
+     * @return chunks dropped for there being no room left to hold their
+     * unfinished message
+     */
+    long getPendingDropped();
+}
@@ -0,0 +1,198 @@
+/*
+ * @filename VectorSha256.java
+ * @author Chris Tremblay (cst1465)
+ * @date 10/18/2026
+ *
+ * Description:
+ *  Multi-buffer SHA-256 on the Vector API, one message per vector lane
+ */
+
+import edu.rit.util.Packing;
+import java.util.Arrays;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * A VectorSha256 hashes a batch of equal length messages a group of lanes at
+ * a time, one message per lane of an {@link IntVector} of the platform's
+ * preferred size, so each SIMD instruction works on one word of every lane's
+ * message: 8 messages at a time with AVX2, 16 with AVX-512. The message
+ * schedules, working variables and chaining values are kept lane by lane,
+ * word {@code t} of lane {@code l} at {@code t * lanes + l}, so one word of
+ * every lane loads and stores as one vector. Since every message has the same
+ * length, every lane has the same number of blocks and the same padding.
+ * <P>
+ * The Vector API is an incubator module, so this class needs JDK 16 or later
+ * and {@code --add-modules jdk.incubator.vector} both to compile and to run.
+ * {@link OAEP} only loads it by name, and hashes one message at a time when
+ * it can't. A VectorSha256 keeps scratch storage, so it must not be shared
+ * between threads
+ *
+ * @author Chris Tremblay (cst1465)
+ * @version 10/18/2026
+ */
+public class VectorSha256 implements OAEP.MultiHash {
+
+    /** The vector shape used, the widest the platform runs well */
+    private static final VectorSpecies<Integer> SPECIES =
+            IntVector.SPECIES_PREFERRED;
+
+    /** The number of lanes */
+    private final int lanes = SPECIES.length();
+
+    /** The message schedule of each lane */
+    private final int[] w = new int[64 * lanes];
+
+    /** The chaining value of each lane */
+    private final int[] state = new int[8 * lanes];
+
+    /** The working variables of each lane, a to h, rotated by round */
+    private final int[] work = new int[8 * lanes];
+
+    /** The padded tail of each lane's message, at most two blocks */
+    private final byte[][] tail = new byte[lanes][128];
+
+    /** One block of one lane, as words */
+    private final int[] block = new int[16];
+
+    @Override
+    public int lanes(){
+        return lanes;
+    }
+
+    @Override
+    public void sha256(byte[][] msgbuf, int[] msgoff, int msglen, int count,
+                       byte[][] digbuf, int[] digoff){
+        // the bytes after the last full block, one 0x80 byte, zeros and the
+        // length in bits fill one or two blocks
+        int full = msglen & ~63;
+        int tailLength = msglen - full;
+        int padded = ((tailLength + 9 + 63) >> 6) << 6;
+        for(int first = 0; first < count; first += lanes){
+            int n = Math.min(lanes, count - first);
+            for(int l = 0; l < n; l++){
+                byte[] t = tail[l];
+                Arrays.fill(t, 0, padded, (byte) 0);
+                System.arraycopy(msgbuf[first + l], msgoff[first + l] + full,
+                        t, 0, tailLength);
+                t[tailLength] = (byte) 0x80;
+                Packing.unpackLongBigEndian(8L * msglen, t, padded - 8);
+            }
+            for(int j = 0; j < 8; j++)
+                Arrays.fill(state, j * lanes, (j + 1) * lanes, OAEP.IV[j]);
+
+            // unused lanes hash whatever their schedule holds, and are never
+            // output
+            for(int at = 0; at < full + padded; at += 64){
+                for(int l = 0; l < n; l++){
+                    if(at < full)
+                        Packing.packIntBigEndian(msgbuf[first + l],
+                                msgoff[first + l] + at, block, 0, 16);
+                    else
+                        Packing.packIntBigEndian(tail[l], at - full, block,
+                                0, 16);
+                    for(int t = 0; t < 16; t++)
+                        w[t * lanes + l] = block[t];
+                }
+                compress();
+            }
+
+            for(int l = 0; l < n; l++)
+                for(int j = 0; j < 8; j++)
+                    Packing.unpackIntBigEndian(state[j * lanes + l],
+                            digbuf[first + l], digoff[first + l] + 4 * j);
+        }
+    }
+
+    /**
+     * Expand the first 16 words of every lane's schedule to 64, and compress
+     * that block into every lane's chaining value
+     */
+    private void compress(){
+        for(int t = 16; t < 64; t++){
+            IntVector w2 = word(t - 2);
+            IntVector w15 = word(t - 15);
+            IntVector s1 = w2.lanewise(VectorOperators.ROR, 17)
+                    .lanewise(VectorOperators.XOR,
+                            w2.lanewise(VectorOperators.ROR, 19))
+                    .lanewise(VectorOperators.XOR,
+                            w2.lanewise(VectorOperators.LSHR, 10));
+            IntVector s0 = w15.lanewise(VectorOperators.ROR, 7)
+                    .lanewise(VectorOperators.XOR,
+                            w15.lanewise(VectorOperators.ROR, 18))
+                    .lanewise(VectorOperators.XOR,
+                            w15.lanewise(VectorOperators.LSHR, 3));
+            s1.add(word(t - 7)).add(s0).add(word(t - 16))
+                    .intoArray(w, t * lanes);
+        }
+
+        // the working variables live in an array rather than in IntVector
+        // locals, which C2 boxes when they are carried around the loop.
+        // Variable v of round t is in slot (v - t) & 7, so a round only
+        // stores the new a over h and the new e over d
+        System.arraycopy(state, 0, work, 0, 8 * lanes);
+        for(int t = 0; t < 64; t++){
+            IntVector a = var(0, t), b = var(1, t), c = var(2, t);
+            IntVector d = var(3, t), e = var(4, t), f = var(5, t);
+            IntVector g = var(6, t), h = var(7, t);
+            IntVector bigSigma1 = e.lanewise(VectorOperators.ROR, 6)
+                    .lanewise(VectorOperators.XOR,
+                            e.lanewise(VectorOperators.ROR, 11))
+                    .lanewise(VectorOperators.XOR,
+                            e.lanewise(VectorOperators.ROR, 25));
+            // Ch(e,f,g) = (e & f) ^ (g & ~e)
+            IntVector ch = e.and(f).lanewise(VectorOperators.XOR,
+                    g.lanewise(VectorOperators.AND_NOT, e));
+            IntVector t1 = h.add(bigSigma1).add(ch).add(OAEP.K[t])
+                    .add(word(t));
+            IntVector bigSigma0 = a.lanewise(VectorOperators.ROR, 2)
+                    .lanewise(VectorOperators.XOR,
+                            a.lanewise(VectorOperators.ROR, 13))
+                    .lanewise(VectorOperators.XOR,
+                            a.lanewise(VectorOperators.ROR, 22));
+            // Maj(a,b,c) = (a & b) | (c & (a | b))
+            IntVector maj = a.and(b).or(c.and(a.or(b)));
+            t1.add(bigSigma0).add(maj).intoArray(work, slot(7, t));
+            d.add(t1).intoArray(work, slot(3, t));
+        }
+        // 64 rounds bring every variable back to its own slot
+        for(int j = 0; j < 8; j++)
+            chain(j).add(IntVector.fromArray(SPECIES, work, j * lanes))
+                    .intoArray(state, j * lanes);
+    }
+
+    /**
+     * @param v the working variable's number, 0 for a to 7 for h
+     * @param t the round
+     * @return where the variable starts in the working array
+     */
+    private int slot(int v, int t){
+        return ((v - t) & 7) * lanes;
+    }
+
+    /**
+     * @param v the working variable's number, 0 for a to 7 for h
+     * @param t the round
+     * @return the variable in every lane at the start of the round
+     */
+    private IntVector var(int v, int t){
+        return IntVector.fromArray(SPECIES, work, slot(v, t));
+    }
+
+    /**
+     * @param t the word's number
+     * @return word t of every lane's schedule
+     */
+    private IntVector word(int t){
+        return IntVector.fromArray(SPECIES, w, t * lanes);
+    }
+
+    /**
+     * @param j the word's number
+     * @return word j of every lane's chaining value
+     */
+    private IntVector chain(int j){
+        return IntVector.fromArray(SPECIES, state, j * lanes);
+    }
+}